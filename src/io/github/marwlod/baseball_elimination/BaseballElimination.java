@@ -1,26 +1,46 @@
 package io.github.marwlod.baseball_elimination;
 
-import edu.princeton.cs.algs4.FlowEdge;
-import edu.princeton.cs.algs4.FlowNetwork;
-import edu.princeton.cs.algs4.FordFulkerson;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class BaseballElimination {
-    private static final double EPSILON = 1E-6;
+    // warm max-flows kept between queries, each holds a copy of the whole O(n^2) division network
+    static final int WARM_FLOWS = 4;
     private final Map<String, Integer> teamIndexMap;
     private final String[] teams;
     private final int[] wins;
     private final int[] losses;
     private final int[] remaining;
     private final int[][] games;
+    // cached answers: certificates[i] is the eliminating subset of team i, null if the team is not eliminated;
+    // valid only if solved[i], so that each team pays for max-flow at most once until the standings change
+    private final boolean[] solved;
+    private final String[][] certificates;
+    // flow network of the division, shared by all the query teams
+    private final DivisionNetwork network;
+    // games left between teams of the division
+    private int totalGames;
+    // max-flows of the last WARM_FLOWS queried teams that were not eliminated, kept with their flow, so that
+    // after a game is recorded only a few capacities change and max-flow continues from the previous flow
+    // instead of from scratch; in the order of their queries, the least recently queried team is the first
+    // to lose its flow, so memory stays bounded however many teams are not eliminated; guarded by itself
+    private final LinkedHashMap<Integer, MaxFlow> flows = new LinkedHashMap<>();
+    // max-flows no longer needed by any team, reloaded for the next query instead of allocating new ones,
+    // at most one for every query solved in parallel; guarded by flows
+    private final Deque<MaxFlow> spareFlows = new ArrayDeque<>();
 
     // create a baseball division from given filename
     public BaseballElimination(String filename) {
@@ -45,6 +65,28 @@ public class BaseballElimination {
                 games[i][j] = in.readInt();
             }
         }
+        solved = new boolean[teamCount];
+        certificates = new String[teamCount][];
+        network = new DivisionNetwork(this.games);
+        totalGames = countGames();
+    }
+
+    // create a baseball division from given standings, arrays are copied
+    BaseballElimination(String[] teams, int[] wins, int[] losses, int[] remaining, int[][] games) {
+        teamIndexMap = new HashMap<>();
+        this.teams = teams.clone();
+        this.wins = wins.clone();
+        this.losses = losses.clone();
+        this.remaining = remaining.clone();
+        this.games = new int[teams.length][];
+        for (int i = 0; i < teams.length; i++) {
+            teamIndexMap.put(teams[i], i);
+            this.games[i] = games[i].clone();
+        }
+        solved = new boolean[teams.length];
+        certificates = new String[teams.length][];
+        network = new DivisionNetwork(this.games);
+        totalGames = countGames();
     }
 
     // number of teams
@@ -82,78 +124,183 @@ public class BaseballElimination {
         return games[teamIndexMap.get(team1)][teamIndexMap.get(team2)];
     }
 
+    // record a game of the division won by winner and lost by loser, answers already computed
+    // are updated lazily and only for teams whose answer may have changed
+    public void recordResult(String winner, String loser) {
+        if (winner == null || loser == null || teamIndexMap.get(winner) == null || teamIndexMap.get(loser) == null)
+            throw new IllegalArgumentException("Both teams must be valid teams");
+        int w = teamIndexMap.get(winner);
+        int l = teamIndexMap.get(loser);
+        if (w == l) throw new IllegalArgumentException("Team cannot play against itself");
+        if (games[w][l] == 0) throw new IllegalArgumentException("No games left between " + winner + " and " + loser);
+        wins[w]++;
+        losses[l]++;
+        remaining[w]--;
+        remaining[l]--;
+        games[w][l]--;
+        games[l][w]--;
+        totalGames--;
+        final int sink = network.sink();
+        for (int q = 0; q < teams.length; q++) {
+            // once eliminated always eliminated by the same subset R: wins of R plus games left
+            // among R never decrease and possible wins of q never increase
+            if (solved[q] && certificates[q] != null) continue;
+            // for the winner only the game played leaves its network and wins of the others did not change,
+            // so its answer stays the same
+            if (q != w) solved[q] = false;
+            MaxFlow maxFlow = flows.get(q);
+            if (maxFlow == null) continue;
+            maxFlow.setCapacity(network.gameEdge(w, l), games[w][l], 0, sink);
+            if (q == l) {
+                // loser can win one game less, so can every other team
+                for (int i = 0; i < teams.length; i++) {
+                    maxFlow.setCapacity(network.sinkEdge(i), DivisionNetwork.capacityToSink(q, i, wins, remaining), 0, sink);
+                }
+            } else {
+                maxFlow.setCapacity(network.sinkEdge(w), DivisionNetwork.capacityToSink(q, w, wins, remaining), 0, sink);
+            }
+        }
+    }
+
     // is given team eliminated?
     public boolean isEliminated(String team) {
         if (team == null || teamIndexMap.get(team) == null) throw new IllegalArgumentException("Invalid team");
-        String eliminatingTeam = getTriviallyEliminatingTeam(team);
-        if (eliminatingTeam != null) return true;
-        FlowNetwork flowNetwork = buildFlowNetwork(team);
-        Iterable<FlowEdge> adjToSource = flowNetwork.adj(0);
-        int targetMaxFlow = 0;
-        for (FlowEdge edge : adjToSource) {
-            targetMaxFlow += edge.capacity();
-        }
-        FordFulkerson ff = new FordFulkerson(flowNetwork, 0, flowNetwork.V()-1);
-        return Math.abs(ff.value() - targetMaxFlow) > EPSILON;
+        return certificate(teamIndexMap.get(team)) != null;
     }
 
     // subset R of teams that eliminates given team; null if not eliminated
     public Iterable<String> certificateOfElimination(String team) {
         if (team == null || teamIndexMap.get(team) == null) throw new IllegalArgumentException("Invalid team");
-        String eliminatingTeam = getTriviallyEliminatingTeam(team);
-        if (eliminatingTeam != null) return Collections.singletonList(eliminatingTeam);
+        String[] certificate = certificate(teamIndexMap.get(team));
+        if (certificate == null) return null;
+        return Collections.unmodifiableList(Arrays.asList(certificate));
+    }
 
-        FlowNetwork flowNetwork = buildFlowNetwork(team);
-        FordFulkerson ff = new FordFulkerson(flowNetwork, 0, flowNetwork.V()-1);
-        List<String> eliminatingTeams = new ArrayList<>();
-        int firstTeamIndex = 1 + (teams.length * (teams.length-1) / 2);
-        for (int i = firstTeamIndex; i < flowNetwork.V()-1; i++) {
-            if (i - firstTeamIndex == teamIndexMap.get(team)) continue;
-            if (ff.inCut(i)) {
-                eliminatingTeams.add(teams[i - firstTeamIndex]);
+    // certificate of elimination of every team (null if not eliminated), in the order of teams()
+    public Map<String, Iterable<String>> eliminationReport() {
+        for (int i = 0; i < teams.length; i++) {
+            if (solved[i]) continue;
+            String eliminatingTeam = getTriviallyEliminatingTeam(teams[i]);
+            if (eliminatingTeam != null) setCertificate(i, new String[] {eliminatingTeam});
+        }
+        // going from the highest possible wins down, once a team is eliminated the teams below it are
+        // mostly resolved by dominance, without running max-flow for them
+        Integer[] byMaxWins = new Integer[teams.length];
+        for (int i = 0; i < teams.length; i++) byMaxWins[i] = i;
+        Arrays.sort(byMaxWins, (first, second) ->
+                Integer.compare(wins[second] + remaining[second], wins[first] + remaining[first]));
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int next = 0;
+        while (next < teams.length) {
+            int[] batch = new int[parallelism];
+            int batchSize = 0;
+            for (; next < teams.length && batchSize < parallelism; next++) {
+                if (!solved[byMaxWins[next]]) batch[batchSize++] = byMaxWins[next];
+            }
+            IntStream.of(Arrays.copyOf(batch, batchSize)).parallel().forEach(this::certificate);
+            for (int k = 0; k < batchSize; k++) {
+                if (certificates[batch[k]] != null) applyDominance(batch[k], byMaxWins, next);
             }
         }
-        if (eliminatingTeams.isEmpty()) return null;
-        return eliminatingTeams;
+        Map<String, Iterable<String>> report = new LinkedHashMap<>();
+        for (String team : teams) {
+            report.put(team, certificateOfElimination(team));
+        }
+        return report;
+    }
+
+    // team is eliminated by subset R, every team not in R that cannot win more games than team
+    // is eliminated by the same R, as R's wins and games left among themselves do not depend on it
+    private void applyDominance(int team, Integer[] byMaxWins, int from) {
+        String[] certificate = certificates[team];
+        List<String> subset = Arrays.asList(certificate);
+        for (int k = from; k < byMaxWins.length; k++) {
+            int other = byMaxWins[k];
+            if (solved[other] || wins[other] + remaining[other] > wins[team] + remaining[team]) continue;
+            if (!subset.contains(teams[other])) setCertificate(other, certificate);
+        }
+    }
+
+    private String[] certificate(int teamIndex) {
+        if (!solved[teamIndex]) setCertificate(teamIndex, solve(teamIndex));
+        return certificates[teamIndex];
+    }
+
+    private void setCertificate(int teamIndex, String[] certificate) {
+        certificates[teamIndex] = certificate;
+        solved[teamIndex] = true;
     }
 
-    private FlowNetwork buildFlowNetwork(String team) {
-        // source + number of 2-combinations of teams + teams + sink
-        int teamCombinations = teams.length * (teams.length-1) / 2;
-        FlowNetwork flowNetwork = new FlowNetwork(1 + teamCombinations + teams.length + 1);
-        int combinationCounter = 1;
-        final int teamCounter = 1 + teamCombinations;
+    // subset R of teams that eliminates team with given index, null if not eliminated
+    private String[] solve(int queryTeamIndex) {
+        String eliminatingTeam = getTriviallyEliminatingTeam(teams[queryTeamIndex]);
+        if (eliminatingTeam != null) {
+            MaxFlow warm;
+            synchronized (flows) {
+                warm = flows.remove(queryTeamIndex);
+            }
+            if (warm != null) releaseFlow(warm);
+            return new String[] {eliminatingTeam};
+        }
+
+        MaxFlow maxFlow = takeFlow(queryTeamIndex);
+        if (maxFlow.maxFlow(0, network.sink()) == totalGames) {
+            keepFlow(queryTeamIndex, maxFlow);
+            return null;
+        }
+        List<String> eliminatingTeams = new ArrayList<>();
         for (int i = 0; i < teams.length; i++) {
-            // if query index found, don't add any edges to it's vertex
-            if (i == teamIndexMap.get(team)) continue;
+            if (i == queryTeamIndex) continue;
+            if (maxFlow.inCut(network.teamVertex(i))) {
+                eliminatingTeams.add(teams[i]);
+            }
+        }
+        // eliminated teams stay eliminated, the max-flow will not be needed anymore
+        releaseFlow(maxFlow);
+        return eliminatingTeams.toArray(new String[0]);
+    }
 
-            for (int j = i+1; j < teams.length; j++) {
-                if (j == teamIndexMap.get(team)) continue;
-                int gamesLeftBetweenTwoTeams = games[i][j];
-                // add edge from source to combination
-                flowNetwork.addEdge(new FlowEdge(0, combinationCounter, gamesLeftBetweenTwoTeams));
-                // add two edges from combination (eg. {team0,team1}) to corresponding vertices (in this case to team0 and to team1)
-                flowNetwork.addEdge(new FlowEdge(combinationCounter, teamCounter + i,
-                        Double.POSITIVE_INFINITY));
-                flowNetwork.addEdge(new FlowEdge(combinationCounter, teamCounter + j,
-                        Double.POSITIVE_INFINITY));
-                combinationCounter++;
+    // warm max-flow of the team, taken out of the cache while in use, or a spare one loaded for the team
+    private MaxFlow takeFlow(int teamIndex) {
+        MaxFlow maxFlow;
+        synchronized (flows) {
+            maxFlow = flows.remove(teamIndex);
+            if (maxFlow != null) return maxFlow;
+            maxFlow = spareFlows.poll();
+        }
+        if (maxFlow == null) maxFlow = network.newMaxFlow();
+        network.load(maxFlow, teamIndex, wins, remaining, games);
+        return maxFlow;
+    }
+
+    // keep the flow of a team that is not eliminated as the most recently queried one
+    private void keepFlow(int teamIndex, MaxFlow maxFlow) {
+        MaxFlow evicted = null;
+        synchronized (flows) {
+            flows.put(teamIndex, maxFlow);
+            if (flows.size() > WARM_FLOWS) {
+                Iterator<MaxFlow> leastRecent = flows.values().iterator();
+                evicted = leastRecent.next();
+                leastRecent.remove();
             }
         }
+        if (evicted != null) releaseFlow(evicted);
+    }
 
-        final int sinkIndex = flowNetwork.V()-1;
-        int queryTeamIndex = teamIndexMap.get(team);
+    private void releaseFlow(MaxFlow maxFlow) {
+        synchronized (flows) {
+            if (spareFlows.size() < ForkJoinPool.getCommonPoolParallelism()) spareFlows.push(maxFlow);
+        }
+    }
+
+    private int countGames() {
+        int count = 0;
         for (int i = 0; i < teams.length; i++) {
-            if (i == teamIndexMap.get(team)) {
-                continue;
+            for (int j = i+1; j < teams.length; j++) {
+                count += games[i][j];
             }
-            // maximum number of winning games this team can get, so the query team will still have a chance to be the winner
-            int numGamesStillCanWin = wins[queryTeamIndex] + remaining[queryTeamIndex]
-                    - wins[i];
-            // add edge from this team to sink
-            flowNetwork.addEdge(new FlowEdge(teamCounter + i, sinkIndex, Math.max(numGamesStillCanWin, 0)));
         }
-        return flowNetwork;
+        return count;
     }
 
     private String getTriviallyEliminatingTeam(String team) {
@@ -174,10 +321,11 @@ public class BaseballElimination {
 
     public static void main(String[] args) {
         BaseballElimination division = new BaseballElimination(args[0]);
+        Map<String, Iterable<String>> report = division.eliminationReport();
         for (String team : division.teams()) {
-            if (division.isEliminated(team)) {
+            if (report.get(team) != null) {
                 StdOut.print(team + " is eliminated by the subset R = { ");
-                for (String t : division.certificateOfElimination(team)) {
+                for (String t : report.get(team)) {
                     StdOut.print(t + " ");
                 }
                 StdOut.println("}");
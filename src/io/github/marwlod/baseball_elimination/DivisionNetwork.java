@@ -0,0 +1,133 @@
+package io.github.marwlod.baseball_elimination;
+
+import java.util.Arrays;
+
+// flow network of a division shared by all query teams: source, vertex for every pair of teams that have
+// games left between them, vertex for every team and sink; games of the query team are routed to its own
+// vertex, which has unlimited capacity to the sink, so that only capacities change from query to query
+// and the same MaxFlow can be reloaded for any query team without allocating anything
+class DivisionNetwork {
+    // capacity of edges that are never the bottleneck
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private final int teamCount;
+    private final int pairCount;
+    // edges as struct of arrays: source -> pair k is edge 3k, pair k -> its teams are edges 3k+1 and 3k+2,
+    // team i -> sink is edge 3 * pairCount + i; capacities of edges from source and to sink are set per query
+    private final int[] from;
+    private final int[] to;
+    private final int[] capacity;
+    // teams of pair k
+    private final int[] pairFirst;
+    private final int[] pairSecond;
+    // pair of teams i and j at i * teamCount + j, -1 if they had no games left when the network was built
+    private final int[] pairIndex;
+
+    // network of a division with given games left; games may only decrease later
+    DivisionNetwork(int[][] games) {
+        teamCount = games.length;
+        pairIndex = new int[teamCount * teamCount];
+        Arrays.fill(pairIndex, -1);
+        int pairs = 0;
+        for (int i = 0; i < teamCount; i++) {
+            for (int j = i+1; j < teamCount; j++) {
+                if (games[i][j] > 0) pairs++;
+            }
+        }
+        pairCount = pairs;
+        pairFirst = new int[pairCount];
+        pairSecond = new int[pairCount];
+        int edges = 3 * pairCount + teamCount;
+        from = new int[edges];
+        to = new int[edges];
+        capacity = new int[edges];
+        final int sink = vertices() - 1;
+        int k = 0;
+        for (int i = 0; i < teamCount; i++) {
+            for (int j = i+1; j < teamCount; j++) {
+                if (games[i][j] == 0) continue;
+                pairIndex[i * teamCount + j] = pairIndex[j * teamCount + i] = k;
+                pairFirst[k] = i;
+                pairSecond[k] = j;
+                setEdge(3*k, 0, 1 + k, 0);
+                setEdge(3*k + 1, 1 + k, teamVertex(i), INFINITY);
+                setEdge(3*k + 2, 1 + k, teamVertex(j), INFINITY);
+                k++;
+            }
+        }
+        for (int i = 0; i < teamCount; i++) {
+            setEdge(3 * pairCount + i, teamVertex(i), sink, 0);
+        }
+    }
+
+    private void setEdge(int e, int v, int w, int cap) {
+        from[e] = v;
+        to[e] = w;
+        capacity[e] = cap;
+    }
+
+    // source + pairs with games left + teams + sink
+    int vertices() {
+        return 1 + pairCount + teamCount + 1;
+    }
+
+    int sink() {
+        return vertices() - 1;
+    }
+
+    int teamVertex(int i) {
+        return 1 + pairCount + i;
+    }
+
+    // new max-flow with edges of this network, to be loaded for a query team
+    MaxFlow newMaxFlow() {
+        MaxFlow maxFlow = new MaxFlow(vertices(), from.length);
+        for (int e = 0; e < from.length; e++) {
+            maxFlow.addEdge(from[e], to[e], capacity[e]);
+        }
+        return maxFlow;
+    }
+
+    // edge of maxFlow from source to the vertex of games between teams i and j, -1 if there is none
+    int gameEdge(int i, int j) {
+        int k = pairIndex[i * teamCount + j];
+        return k < 0 ? -1 : 2 * (3*k);
+    }
+
+    // edge of maxFlow from the vertex of team i to sink
+    int sinkEdge(int i) {
+        return 2 * (3 * pairCount + i);
+    }
+
+    // capacity of the edge from team i to sink for given query team: maximum number of winning games
+    // team i can get, so the query team will still have a chance to be the winner
+    static int capacityToSink(int queryTeamIndex, int i, int[] wins, int[] remaining) {
+        if (i == queryTeamIndex) return INFINITY;
+        return Math.max(wins[queryTeamIndex] + remaining[queryTeamIndex] - wins[i], 0);
+    }
+
+    // remove the flow from maxFlow (created by newMaxFlow()) and set its capacities for the query team
+    // and standings given by the arrays; returns flow saturating all the edges from source
+    int load(MaxFlow maxFlow, int queryTeamIndex, int[] wins, int[] remaining, int[][] games) {
+        maxFlow.removeFlow();
+        final int sink = sink();
+        int totalGames = 0;
+        for (int k = 0; k < pairCount; k++) {
+            int gamesLeft = games[pairFirst[k]][pairSecond[k]];
+            totalGames += gamesLeft;
+            maxFlow.setCapacity(2 * (3*k), gamesLeft, 0, sink);
+        }
+        for (int i = 0; i < teamCount; i++) {
+            maxFlow.setCapacity(sinkEdge(i), capacityToSink(queryTeamIndex, i, wins, remaining), 0, sink);
+        }
+        return totalGames;
+    }
+
+    // is the query team eliminated in standings given by the arrays? maxFlow is reloaded for the query
+    boolean isEliminated(MaxFlow maxFlow, int queryTeamIndex, int[] wins, int[] remaining, int[][] games) {
+        for (int i = 0; i < teamCount; i++) {
+            if (wins[i] > wins[queryTeamIndex] + remaining[queryTeamIndex]) return true;
+        }
+        int totalGames = load(maxFlow, queryTeamIndex, wins, remaining, games);
+        return maxFlow.maxFlow(0, sink()) != totalGames;
+    }
+}
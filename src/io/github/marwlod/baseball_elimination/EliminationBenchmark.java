@@ -0,0 +1,196 @@
+package io.github.marwlod.baseball_elimination;
+
+import edu.princeton.cs.algs4.FlowEdge;
+import edu.princeton.cs.algs4.FlowNetwork;
+import edu.princeton.cs.algs4.FordFulkerson;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// compares MaxFlow (Dinic, integer capacities) with algs4 FordFulkerson on generated divisions, then checks
+// how much heap a large division keeps after answering every team
+public class EliminationBenchmark {
+    private static final double EPSILON = 1E-6;
+
+    // random division of n teams in the middle of a season, games between each pair of teams are left
+    // with some probability, so that both eliminated and not eliminated teams are generated
+    public static BaseballElimination randomDivision(int n, Random random) {
+        String[] teams = new String[n];
+        int[] wins = new int[n];
+        int[] losses = new int[n];
+        int[] remaining = new int[n];
+        int[][] games = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            teams[i] = "Team" + i;
+            for (int j = i+1; j < n; j++) {
+                games[i][j] = games[j][i] = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                remaining[i] += games[i][j];
+            }
+            // strength of the team decides how many games it has already won
+            double strength = 0.4 + 0.2 * random.nextDouble();
+            int played = n + random.nextInt(n);
+            wins[i] = (int) Math.round(played * strength);
+            losses[i] = played - wins[i];
+        }
+        return new BaseballElimination(teams, wins, losses, remaining, games);
+    }
+
+    // division of n teams tied on wins with two games left between every pair, so no team is eliminated
+    static BaseballElimination tiedDivision(int n) {
+        String[] teams = new String[n];
+        int[] wins = new int[n];
+        int[] losses = new int[n];
+        int[] remaining = new int[n];
+        for (int i = 0; i < n; i++) {
+            teams[i] = "Team" + i;
+            wins[i] = 50;
+            losses[i] = 50;
+            remaining[i] = 2 * (n-1);
+        }
+        return new BaseballElimination(teams, wins, losses, remaining, tiedGames(n));
+    }
+
+    private static int[][] tiedGames(int n) {
+        int[][] games = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (j != i) games[i][j] = 2;
+            }
+        }
+        return games;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // heap still held by a division after answering every team, for n teams none of which is eliminated;
+    // warm max-flows are bounded, so it must stay within a few copies of the flow network, not one per team
+    static void checkRetainedHeap(int n) {
+        BaseballElimination division = tiedDivision(n);
+        MaxFlow oneFlow = new DivisionNetwork(tiedGames(n)).newMaxFlow();
+        // edge arrays of an edge and its twin plus the vertex arrays, without object headers
+        long flowBytes = Integer.BYTES * (3L * 2 * oneFlow.E() + 4L * oneFlow.V());
+        long before = usedHeap();
+        Map<String, Iterable<String>> report = division.eliminationReport();
+        long retained = usedHeap() - before;
+        for (Iterable<String> certificate : report.values()) {
+            if (certificate != null) throw new IllegalStateException("No team of a tied division is eliminated");
+        }
+        long bound = (BaseballElimination.WARM_FLOWS + ForkJoinPool.getCommonPoolParallelism() + 2) * flowBytes;
+        StdOut.printf("teams = %3d, retained heap after eliminationReport() = %6.1f MB, "
+                + "one max-flow = %5.1f MB%n", n, retained / 1e6, flowBytes / 1e6);
+        if (retained > bound) {
+            throw new IllegalStateException("Division retains " + retained + " bytes, more than " + bound);
+        }
+    }
+
+    // copy of the division without any answers cached
+    static BaseballElimination copy(BaseballElimination division) {
+        int n = division.numberOfTeams();
+        String[] teams = new String[n];
+        int[] wins = new int[n];
+        int[] losses = new int[n];
+        int[] remaining = new int[n];
+        int[][] games = new int[n][n];
+        int i = 0;
+        for (String team : division.teams()) {
+            teams[i] = team;
+            wins[i] = division.wins(team);
+            losses[i] = division.losses(team);
+            remaining[i] = division.remaining(team);
+            i++;
+        }
+        for (i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                games[i][j] = division.against(teams[i], teams[j]);
+            }
+        }
+        return new BaseballElimination(teams, wins, losses, remaining, games);
+    }
+
+    // elimination of the team as computed before MaxFlow, from public methods of the division only
+    static boolean isEliminatedFordFulkerson(BaseballElimination division, String team) {
+        String[] teams = new String[division.numberOfTeams()];
+        int queryTeamIndex = -1;
+        int k = 0;
+        for (String t : division.teams()) {
+            if (t.equals(team)) queryTeamIndex = k;
+            teams[k++] = t;
+        }
+        int n = teams.length;
+        int queryMaxWins = division.wins(team) + division.remaining(team);
+        for (String t : teams) {
+            if (division.wins(t) > queryMaxWins) return true;
+        }
+        int teamCombinations = n * (n-1) / 2;
+        FlowNetwork flowNetwork = new FlowNetwork(1 + teamCombinations + n + 1);
+        int combinationCounter = 1;
+        int teamCounter = 1 + teamCombinations;
+        double targetMaxFlow = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == queryTeamIndex) continue;
+            for (int j = i+1; j < n; j++) {
+                if (j == queryTeamIndex) continue;
+                int against = division.against(teams[i], teams[j]);
+                targetMaxFlow += against;
+                flowNetwork.addEdge(new FlowEdge(0, combinationCounter, against));
+                flowNetwork.addEdge(new FlowEdge(combinationCounter, teamCounter + i, Double.POSITIVE_INFINITY));
+                flowNetwork.addEdge(new FlowEdge(combinationCounter, teamCounter + j, Double.POSITIVE_INFINITY));
+                combinationCounter++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (i == queryTeamIndex) continue;
+            flowNetwork.addEdge(new FlowEdge(teamCounter + i, flowNetwork.V()-1,
+                    Math.max(queryMaxWins - division.wins(teams[i]), 0)));
+        }
+        FordFulkerson ff = new FordFulkerson(flowNetwork, 0, flowNetwork.V()-1);
+        return Math.abs(ff.value() - targetMaxFlow) > EPSILON;
+    }
+
+    // args[0] - number of query teams timed per division (default 10)
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Random random = new Random(42);
+        for (int n : new int[] {30, 100, 300}) {
+            BaseballElimination division = randomDivision(n, random);
+            String[] sample = new String[Math.min(queries, n)];
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = "Team" + (i * n / sample.length);
+            }
+            // warm-up, also checks that both implementations agree
+            BaseballElimination warmUp = copy(division);
+            for (String team : sample) {
+                if (warmUp.isEliminated(team) != isEliminatedFordFulkerson(division, team)) {
+                    throw new IllegalStateException("Implementations disagree for " + team);
+                }
+            }
+            // fresh copy, so that no answer is cached
+            BaseballElimination timed = copy(division);
+            long start = System.nanoTime();
+            int eliminated = 0;
+            for (String team : sample) {
+                if (timed.isEliminated(team)) eliminated++;
+            }
+            long dinic = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (String team : sample) {
+                isEliminatedFordFulkerson(division, team);
+            }
+            long fordFulkerson = System.nanoTime() - start;
+            StdOut.printf("teams = %3d, eliminated = %2d/%d, Dinic = %8.2f ms/query, FordFulkerson = %8.2f ms/query, "
+                    + "speedup = %5.1f%n", n, eliminated, sample.length, dinic / 1e6 / sample.length,
+                    fordFulkerson / 1e6 / sample.length, (double) fordFulkerson / dinic);
+        }
+        checkRetainedHeap(300);
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.marwlod.baseball_elimination;
+
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
+
+import java.util.Arrays;
+
+// Dinic's max-flow algorithm on a network with integer capacities, edges are kept in primitive arrays
+// instead of FlowEdge objects; edge e and its residual twin e^1 are always added together
+public class MaxFlow {
+    private static final Histogram AUGMENTING_PATHS = Metrics.histogram("maxflow.augmentingPaths");
+    private static final Histogram PHASES = Metrics.histogram("maxflow.phases");
+    private int vertices;
+    private int edges;
+    // value of the flow currently in the network
+    private int value;
+    // forward star adjacency: first edge out of each vertex, following edges are linked through next[]
+    private int[] head;
+    private int[] next;
+    private int[] to;
+    // residual capacity of each edge
+    private int[] cap;
+    // BFS level of each vertex in the residual graph, -1 if unreachable from the source
+    private int[] level;
+    // current edge of each vertex in DFS, edges before it are known to be saturated
+    private int[] iter;
+    private int[] queue;
+    // augmenting paths and level graphs (phases) of the last maxFlow(), counted only with metrics enabled
+    private int paths;
+    private int phases;
+
+    public MaxFlow(int vertices, int expectedEdges) {
+        if (vertices < 2) throw new IllegalArgumentException("Network needs at least a source and a sink");
+        head = new int[0];
+        level = new int[0];
+        next = new int[Math.max(2, 2 * expectedEdges)];
+        to = new int[next.length];
+        cap = new int[next.length];
+        reset(vertices);
+    }
+
+    // remove all edges and resize to given number of vertices, keeps already allocated arrays when possible
+    public void reset(int vertices) {
+        if (vertices < 2) throw new IllegalArgumentException("Network needs at least a source and a sink");
+        this.vertices = vertices;
+        this.edges = 0;
+        this.value = 0;
+        if (head.length < vertices) {
+            head = new int[vertices];
+            level = new int[vertices];
+            iter = new int[vertices];
+            queue = new int[vertices];
+        }
+        Arrays.fill(head, 0, vertices, -1);
+        Arrays.fill(level, 0, vertices, -1);
+    }
+
+    // number of vertices
+    public int V() {
+        return vertices;
+    }
+
+    // number of edges, not counting their residual twins
+    public int E() {
+        return edges / 2;
+    }
+
+    // add edge v->w with given capacity, returns its index
+    public int addEdge(int v, int w, int capacity) {
+        if (v < 0 || v >= vertices || w < 0 || w >= vertices) throw new IllegalArgumentException("Invalid vertex");
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+        if (edges + 2 > to.length) {
+            next = Arrays.copyOf(next, 2 * to.length);
+            cap = Arrays.copyOf(cap, 2 * to.length);
+            to = Arrays.copyOf(to, 2 * to.length);
+        }
+        final int e = edges;
+        to[e] = w;
+        cap[e] = capacity;
+        next[e] = head[v];
+        head[v] = e;
+        to[e+1] = v;
+        cap[e+1] = 0;
+        next[e+1] = head[w];
+        head[w] = e+1;
+        edges += 2;
+        return e;
+    }
+
+    // remove all flow from the network, restoring capacities of all the edges
+    public void removeFlow() {
+        for (int e = 0; e < edges; e += 2) {
+            cap[e] += cap[e+1];
+            cap[e+1] = 0;
+        }
+        value = 0;
+    }
+
+    // flow currently going through edge e
+    public int flow(int e) {
+        return cap[e^1];
+    }
+
+    // value of maximum flow from s to t; flow already in the network is kept, so after changing
+    // some capacities the maximum flow is found incrementally instead of from scratch
+    public int maxFlow(int s, int t) {
+        if (s == t) throw new IllegalArgumentException("Source and sink must differ");
+        if (Metrics.ENABLED) {
+            paths = 0;
+            phases = 0;
+        }
+        value += augment(s, t, Integer.MAX_VALUE);
+        if (Metrics.ENABLED) {
+            AUGMENTING_PATHS.record(paths);
+            PHASES.record(phases);
+        }
+        return value;
+    }
+
+    // change capacity of edge e in a network carrying flow from s to t, keeping the flow valid;
+    // if the edge carries more than the new capacity, the surplus is first rerouted around it
+    // and what cannot be rerouted is returned to the source, lowering the value of the flow
+    public void setCapacity(int e, int capacity, int s, int t) {
+        if (e < 0 || e >= edges || (e & 1) != 0) throw new IllegalArgumentException("Invalid edge");
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+        int flow = cap[e^1];
+        if (capacity >= flow) {
+            cap[e] = capacity - flow;
+            return;
+        }
+        int surplus = flow - capacity;
+        cap[e] = 0;
+        cap[e^1] = capacity;
+        // tail v of the edge now receives more than it sends, its head w sends more than it receives
+        int v = to[e^1];
+        int w = to[e];
+        surplus -= augment(v, w, surplus);
+        if (surplus > 0) {
+            if (v != s) augment(v, s, surplus);
+            if (w != t) augment(t, w, surplus);
+            value -= surplus;
+        }
+    }
+
+    // is v reachable from the source in the residual network? (valid after maxFlow())
+    public boolean inCut(int v) {
+        if (v < 0 || v >= vertices) throw new IllegalArgumentException("Invalid vertex");
+        return level[v] >= 0;
+    }
+
+    // pushes at most limit units of flow from s to t, returns amount pushed
+    private int augment(int s, int t, int limit) {
+        int flow = 0;
+        while (flow < limit && bfs(s, t)) {
+            if (Metrics.ENABLED) phases++;
+            System.arraycopy(head, 0, iter, 0, vertices);
+            int pushed;
+            while (flow < limit && (pushed = dfs(s, t, limit - flow)) > 0) {
+                if (Metrics.ENABLED) paths++;
+                flow += pushed;
+            }
+        }
+        return flow;
+    }
+
+    // builds level graph, returns true if t is reachable from s
+    private boolean bfs(int s, int t) {
+        Arrays.fill(level, 0, vertices, -1);
+        int qHead = 0;
+        int qTail = 0;
+        queue[qTail++] = s;
+        level[s] = 0;
+        while (qHead < qTail) {
+            int v = queue[qHead++];
+            for (int e = head[v]; e >= 0; e = next[e]) {
+                if (cap[e] > 0 && level[to[e]] < 0) {
+                    level[to[e]] = level[v] + 1;
+                    queue[qTail++] = to[e];
+                }
+            }
+        }
+        return level[t] >= 0;
+    }
+
+    // finds augmenting path along the level graph, returns amount of flow pushed through it
+    private int dfs(int v, int t, int limit) {
+        if (v == t) return limit;
+        for (; iter[v] >= 0; iter[v] = next[iter[v]]) {
+            int e = iter[v];
+            int w = to[e];
+            if (cap[e] > 0 && level[w] == level[v] + 1) {
+                int pushed = dfs(w, t, Math.min(limit, cap[e]));
+                if (pushed > 0) {
+                    cap[e] -= pushed;
+                    cap[e^1] += pushed;
+                    return pushed;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,224 @@
+package io.github.marwlod.baseball_elimination;
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Monte Carlo estimate of the probability of each team of the division being eliminated or clinching
+// the division after a part of the remaining games between teams of the division is played
+public class SeasonSimulator {
+    // simulations done by a worker before its results are merged
+    private static final int BATCH = 1000;
+    // 95% confidence
+    private static final double Z = 1.96;
+    private final String[] teams;
+    private final int[] wins;
+    private final int[] remaining;
+    private final int[][] games;
+    // probability that team i wins a game against team j
+    private final double[][] winProbability;
+    // fraction of the remaining games between teams of the division played in a simulation
+    private final double fraction;
+    // teams eliminated already, they are eliminated in every simulation
+    private final boolean[] eliminated;
+    private final DivisionNetwork network;
+    private final SplittableRandom random;
+    private final Worker[] workers;
+    private final long[] eliminatedCount;
+    private final long[] clinchedCount;
+    private long simulations;
+
+    // one per thread, all the arrays are allocated once and reused by every simulation
+    private class Worker {
+        private final int[] simWins;
+        private final int[] simRemaining;
+        private final int[][] simGames;
+        private final MaxFlow maxFlow;
+        private final long[] eliminatedCount;
+        private final long[] clinchedCount;
+
+        private Worker() {
+            int n = teams.length;
+            simWins = new int[n];
+            simRemaining = new int[n];
+            simGames = new int[n][n];
+            maxFlow = network.newMaxFlow();
+            eliminatedCount = new long[n];
+            clinchedCount = new long[n];
+        }
+
+        private void simulate(SplittableRandom random, int count) {
+            int n = teams.length;
+            for (int s = 0; s < count; s++) {
+                System.arraycopy(wins, 0, simWins, 0, n);
+                System.arraycopy(remaining, 0, simRemaining, 0, n);
+                for (int i = 0; i < n; i++) {
+                    for (int j = i+1; j < n; j++) {
+                        int left = games[i][j];
+                        for (int g = 0; g < games[i][j]; g++) {
+                            if (random.nextDouble() >= fraction) continue;
+                            left--;
+                            simRemaining[i]--;
+                            simRemaining[j]--;
+                            if (random.nextDouble() < winProbability[i][j]) simWins[i]++;
+                            else simWins[j]++;
+                        }
+                        simGames[i][j] = simGames[j][i] = left;
+                    }
+                }
+                for (int q = 0; q < n; q++) {
+                    if (eliminated[q] || network.isEliminated(maxFlow, q, simWins, simRemaining, simGames)) {
+                        eliminatedCount[q]++;
+                    } else if (hasClinched(q)) {
+                        clinchedCount[q]++;
+                    }
+                }
+            }
+        }
+
+        // can no other team win more games than the query team has already won?
+        private boolean hasClinched(int q) {
+            for (int i = 0; i < teams.length; i++) {
+                if (i != q && simWins[i] + simRemaining[i] > simWins[q]) return false;
+            }
+            return true;
+        }
+    }
+
+    // simulator of given division, in every simulation each remaining game between teams of the division
+    // is played with probability fraction; the outcome of a game follows from winning percentages of both
+    // teams (log5 formula); simulations are reproducible for given seed and number of threads
+    public SeasonSimulator(BaseballElimination division, double fraction, long seed, int threads) {
+        if (division == null) throw new IllegalArgumentException("Division cannot be null");
+        if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Fraction must be within [0, 1]");
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive");
+        this.fraction = fraction;
+        int n = division.numberOfTeams();
+        teams = new String[n];
+        wins = new int[n];
+        remaining = new int[n];
+        games = new int[n][n];
+        eliminated = new boolean[n];
+        double[] percentage = new double[n];
+        int k = 0;
+        for (String team : division.teams()) {
+            teams[k] = team;
+            wins[k] = division.wins(team);
+            remaining[k] = division.remaining(team);
+            int played = division.wins(team) + division.losses(team);
+            percentage[k] = played == 0 ? 0.5 : (double) division.wins(team) / played;
+            k++;
+        }
+        for (int i = 0; i < n; i++) {
+            eliminated[i] = division.isEliminated(teams[i]);
+            for (int j = 0; j < n; j++) {
+                games[i][j] = division.against(teams[i], teams[j]);
+            }
+        }
+        winProbability = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double a = percentage[i];
+                double b = percentage[j];
+                double denominator = a + b - 2 * a * b;
+                winProbability[i][j] = denominator == 0 ? 0.5 : (a - a * b) / denominator;
+            }
+        }
+        // games left only decrease in simulations, so the network of the current standings fits them all
+        network = new DivisionNetwork(games);
+        random = new SplittableRandom(seed);
+        workers = new Worker[threads];
+        for (int w = 0; w < threads; w++) {
+            workers[w] = new Worker();
+        }
+        eliminatedCount = new long[n];
+        clinchedCount = new long[n];
+    }
+
+    // run simulations until 95% confidence interval of every probability is at most +-epsilon wide
+    // or until maxSimulations simulations are done in total
+    public void run(double epsilon, long maxSimulations) {
+        if (epsilon <= 0) throw new IllegalArgumentException("Epsilon must be positive");
+        while (simulations < maxSimulations && (simulations == 0 || maxHalfWidth() > epsilon)) {
+            // one stream per worker and round, split in order, so the results do not depend on scheduling
+            SplittableRandom[] streams = new SplittableRandom[workers.length];
+            for (int w = 0; w < workers.length; w++) {
+                streams[w] = random.split();
+            }
+            int perWorker = (int) Math.min(BATCH, Math.max(1, (maxSimulations - simulations) / workers.length));
+            IntStream.range(0, workers.length).parallel().forEach(w -> workers[w].simulate(streams[w], perWorker));
+            simulations += (long) perWorker * workers.length;
+            for (int i = 0; i < teams.length; i++) {
+                eliminatedCount[i] = 0;
+                clinchedCount[i] = 0;
+                for (Worker worker : workers) {
+                    eliminatedCount[i] += worker.eliminatedCount[i];
+                    clinchedCount[i] += worker.clinchedCount[i];
+                }
+            }
+        }
+    }
+
+    // number of simulations done so far
+    public long simulations() {
+        return simulations;
+    }
+
+    // estimated probability that given team is eliminated
+    public double eliminationProbability(String team) {
+        return (double) eliminatedCount[index(team)] / Math.max(simulations, 1);
+    }
+
+    // estimated probability that given team clinches the division (no other team can win more games)
+    public double clinchProbability(String team) {
+        return (double) clinchedCount[index(team)] / Math.max(simulations, 1);
+    }
+
+    // half-width of the widest 95% confidence interval over all the estimates
+    public double maxHalfWidth() {
+        double max = 0;
+        for (int i = 0; i < teams.length; i++) {
+            max = Math.max(max, halfWidth(eliminatedCount[i]));
+            max = Math.max(max, halfWidth(clinchedCount[i]));
+        }
+        return max;
+    }
+
+    // Wilson score interval, unlike p +- z * sqrt(p(1-p)/n) it does not shrink to nothing when a rare
+    // outcome has not shown up yet (count 0) or a likely one has always shown up (count n)
+    private double halfWidth(long count) {
+        if (simulations == 0) return Double.POSITIVE_INFINITY;
+        double n = simulations;
+        double p = count / n;
+        return Z / (1 + Z * Z / n) * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n));
+    }
+
+    private int index(String team) {
+        if (team == null) throw new IllegalArgumentException("Invalid team");
+        for (int i = 0; i < teams.length; i++) {
+            if (teams[i].equals(team)) return i;
+        }
+        throw new IllegalArgumentException("Invalid team");
+    }
+
+    // args[0] - division file, args[1] - fraction of remaining games to play (default 1),
+    // args[2] - epsilon (default 0.001), args[3] - maximum number of simulations (default 10000000)
+    public static void main(String[] args) {
+        BaseballElimination division = new BaseballElimination(args[0]);
+        double fraction = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        double epsilon = args.length > 2 ? Double.parseDouble(args[2]) : 0.001;
+        long maxSimulations = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000;
+        SeasonSimulator simulator = new SeasonSimulator(division, fraction, 42,
+                Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        simulator.run(epsilon, maxSimulations);
+        long end = System.nanoTime();
+        for (String team : division.teams()) {
+            StdOut.printf("%-15s eliminated = %.4f, clinched = %.4f%n", team,
+                    simulator.eliminationProbability(team), simulator.clinchProbability(team));
+        }
+        StdOut.printf("%d simulations in %d ms, 95%% confidence +-%.4f%n", simulator.simulations(),
+                (end - start) / (1000 * 1000), simulator.maxHalfWidth());
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.marwlod.boggle;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// searches for high-scoring boards with independent simulated annealing chains run in parallel;
+// every chain scores its boards with a RescoringEvaluator, and all chains share the dictionary of
+// one BoggleSolver
+public class BoardOptimizer implements AutoCloseable {
+    // share of moves that swap two dice, the others put a new letter on one die
+    private static final double SWAP_PROBABILITY = 0.2;
+    private final BoggleSolver solver;
+    private final int threads;
+    private final ExecutorService pool;
+    // letters are drawn with their frequency in the dictionary, cumulative counts of 'A' ... 'Z'
+    private final long[] letterFrequencies;
+
+    // best board found by optimize() and how fast boards were evaluated
+    public static final class Result {
+        private final char[][] board;
+        private final int score;
+        private final long boardsEvaluated;
+        private final long nanos;
+
+        private Result(char[][] board, int score, long boardsEvaluated, long nanos) {
+            this.board = board;
+            this.score = score;
+            this.boardsEvaluated = boardsEvaluated;
+            this.nanos = nanos;
+        }
+
+        public BoggleBoard board() {
+            return new BoggleBoard(board);
+        }
+
+        public int score() {
+            return score;
+        }
+
+        // boards scored by all the chains together
+        public long boardsEvaluated() {
+            return boardsEvaluated;
+        }
+
+        public double boardsPerSecond() {
+            return boardsEvaluated / (nanos / 1e9);
+        }
+    }
+
+    public BoardOptimizer(BoggleSolver solver, int threads) {
+        if (solver == null) throw new IllegalArgumentException("Solver cannot be null");
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive");
+        this.solver = solver;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "boggle-optimizer");
+            t.setDaemon(true);
+            return t;
+        });
+        final DictionaryImage dictionary = solver.dictionary();
+        letterFrequencies = new long[26];
+        for (int id = 0; id < dictionary.size(); id++) {
+            final String word = dictionary.word(id);
+            for (int i = 0; i < word.length(); i++) {
+                letterFrequencies[word.charAt(i)-'A']++;
+            }
+        }
+        // every letter can be drawn, even if no word uses it
+        letterFrequencies[0]++;
+        for (int c = 1; c < letterFrequencies.length; c++) {
+            letterFrequencies[c] += letterFrequencies[c-1] + 1;
+        }
+    }
+
+    // hill climbing (no worse boards accepted) on `chains` random boards, `steps` moves each
+    public Result hillClimb(int rows, int cols, int chains, int steps, long seed) {
+        return optimize(rows, cols, chains, steps, 0, 0, seed);
+    }
+
+    // simulated annealing on `chains` random rows x cols boards, `steps` moves each;
+    // a move that lowers the score by d is accepted with probability exp(-d/T), where T falls geometrically
+    // from startTemperature to endTemperature over the steps of a chain, 0 means only better or equal boards
+    public Result optimize(int rows, int cols, int chains, int steps, double startTemperature,
+                           double endTemperature, long seed) {
+        if (rows < 1 || cols < 1) throw new IllegalArgumentException("Invalid board size");
+        if (chains < 1 || steps < 0) throw new IllegalArgumentException("Invalid number of chains or steps");
+        if (startTemperature < 0 || endTemperature < 0 || (startTemperature == 0) != (endTemperature == 0)) {
+            throw new IllegalArgumentException("Temperatures must be both positive or both zero");
+        }
+        final long start = System.nanoTime();
+        final SplittableRandom seeds = new SplittableRandom(seed);
+        final List<Future<Result>> futures = new ArrayList<>(chains);
+        for (int c = 0; c < chains; c++) {
+            final SplittableRandom random = seeds.split();
+            futures.add(pool.submit(() -> chain(rows, cols, steps, startTemperature, endTemperature, random)));
+        }
+        Result best = null;
+        long evaluated = 0;
+        try {
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                evaluated += result.boardsEvaluated;
+                if (best == null || result.score > best.score) best = result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while optimizing boards", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Optimizing boards failed", e.getCause());
+        }
+        return new Result(best.board, best.score, evaluated, System.nanoTime() - start);
+    }
+
+    private Result chain(int rows, int cols, int steps, double startTemperature, double endTemperature,
+                         SplittableRandom random) {
+        final long start = System.nanoTime();
+        final char[][] initial = new char[rows][cols];
+        for (char[] row : initial) {
+            for (int col = 0; col < cols; col++) {
+                row[col] = randomLetter(random);
+            }
+        }
+        final RescoringEvaluator evaluator = new RescoringEvaluator(solver, initial);
+        final int cells = evaluator.cells();
+        final double cooling = startTemperature == 0 ? 1 : Math.pow(endTemperature / startTemperature,
+                1.0 / Math.max(1, steps));
+        double temperature = startTemperature;
+        int score = evaluator.score();
+        int bestScore = score;
+        char[][] best = evaluator.board();
+        for (int step = 0; step < steps; step++) {
+            final int proposed;
+            final int cell = random.nextInt(cells);
+            if (cells > 1 && random.nextDouble() < SWAP_PROBABILITY) {
+                final int other = (cell + 1 + random.nextInt(cells - 1)) % cells;
+                final char letter = evaluator.letter(cell);
+                evaluator.propose(cell, evaluator.letter(other));
+                proposed = evaluator.propose(other, letter);
+            } else {
+                proposed = evaluator.propose(cell, randomLetter(random));
+            }
+            if (proposed >= score || (temperature > 0 && random.nextDouble() < Math.exp((proposed - score) / temperature))) {
+                evaluator.accept();
+                score = proposed;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = evaluator.board();
+                }
+            } else {
+                evaluator.reject();
+            }
+            temperature *= cooling;
+        }
+        return new Result(best, bestScore, steps + 1L, System.nanoTime() - start);
+    }
+
+    private char randomLetter(SplittableRandom random) {
+        final long r = random.nextLong(letterFrequencies[letterFrequencies.length - 1]);
+        int c = 0;
+        while (letterFrequencies[c] <= r) c++;
+        return (char) ('A' + c);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // reports the best n x n board and boards/sec for 1, 2, 4, ... threads up to the number of cores, checking the
+    // score against BoggleSolver; for comparison, boards one die away from a good board are scored with
+    // totalScore(), which allocates a new search for every board
+    // args[0] - dictionary file, args[1] - moves per chain (default 20000), args[2] - board size n (default 4)
+    public static void main(String[] args) {
+        BoggleSolver solver = new BoggleSolver(new In(args[0]).readAllStrings());
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        char[][] good;
+        try (BoardOptimizer optimizer = new BoardOptimizer(solver, cores)) {
+            // warm-up, so JIT compilation does not count towards the measurements
+            good = optimizer.optimize(n, n, cores, Math.min(steps, 5000), 10, 0.5, 1).board;
+        }
+
+        // baseline: one full search per board
+        Random random = new Random(42);
+        BoggleBoard[] boards = new BoggleBoard[Math.min(steps, 5000)];
+        for (int i = 0; i < boards.length; i++) {
+            char[][] letters = new char[n][];
+            for (int row = 0; row < n; row++) letters[row] = good[row].clone();
+            letters[random.nextInt(n)][random.nextInt(n)] = (char) ('A' + random.nextInt(26));
+            boards[i] = new BoggleBoard(letters);
+        }
+        long start = System.nanoTime();
+        for (BoggleBoard board : boards) solver.totalScore(board);
+        StdOut.printf("full search: boards/sec = %10.0f%n", boards.length / ((System.nanoTime() - start) / 1e9));
+
+        for (int threads = 1; ; threads = Math.min(2 * threads, cores)) {
+            try (BoardOptimizer optimizer = new BoardOptimizer(solver, threads)) {
+                Result result = optimizer.optimize(n, n, 2 * threads, steps, 10, 0.5, 42);
+                int check = solver.totalScore(result.board());
+                if (check != result.score()) {
+                    throw new IllegalStateException("Evaluator score " + result.score() + ", solver score " + check);
+                }
+                StdOut.printf("threads = %2d, boards/sec = %10.0f, best score = %d%n", threads,
+                        result.boardsPerSecond(), result.score());
+                StdOut.println(result.board());
+            }
+            if (threads == cores) break;
+        }
+    }
+}
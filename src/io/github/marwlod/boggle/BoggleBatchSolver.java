@@ -0,0 +1,130 @@
+package io.github.marwlod.boggle;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// solves many boards in parallel against one dictionary; the dictionary is never modified
+// after BoggleSolver is constructed, so all the workers share it without any locking
+public class BoggleBatchSolver implements AutoCloseable {
+    // more chunks than threads, so a worker that gets easy boards does not sit idle
+    private static final int CHUNKS_PER_THREAD = 4;
+    private final BoggleSolver solver;
+    private final int threads;
+    private final ExecutorService pool;
+    // scratch space of every pool thread, kept across chunks and calls
+    private final ThreadLocal<BoggleSolver.Search> searches = ThreadLocal.withInitial(BoggleSolver.Search::new);
+
+    public BoggleBatchSolver(BoggleSolver solver, int threads) {
+        if (solver == null) throw new IllegalArgumentException("Solver cannot be null");
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive");
+        this.solver = solver;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "boggle-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // total score of every board, scores[i] belongs to boards[i]
+    public int[] scoreAll(BoggleBoard[] boards) {
+        if (boards == null) throw new IllegalArgumentException("Boards cannot be null");
+        final int[] scores = new int[boards.length];
+        runChunked(boards.length, (from, to) -> {
+            final BoggleSolver.Search search = searches.get();
+            for (int i = from; i < to; i++) {
+                solver.search(boards[i], search);
+                scores[i] = search.score();
+            }
+        });
+        return scores;
+    }
+
+    // valid words of every board, words.get(i) belongs to boards[i]
+    public List<List<String>> solveAll(BoggleBoard[] boards) {
+        if (boards == null) throw new IllegalArgumentException("Boards cannot be null");
+        final String[][] words = new String[boards.length][];
+        runChunked(boards.length, (from, to) -> {
+            final BoggleSolver.Search search = searches.get();
+            for (int i = from; i < to; i++) {
+                solver.search(boards[i], search);
+                words[i] = new String[search.hitCount()];
+                for (int j = 0; j < search.hitCount(); j++) {
+                    words[i][j] = solver.wordOf(search.hit(j));
+                }
+            }
+        });
+        List<List<String>> result = new ArrayList<>(boards.length);
+        for (String[] w : words) {
+            result.add(Arrays.asList(w));
+        }
+        return result;
+    }
+
+    private interface Chunk {
+        void solve(int from, int to);
+    }
+
+    private void runChunked(int n, Chunk chunk) {
+        final int chunks = Math.min(n, threads * CHUNKS_PER_THREAD);
+        final List<Future<?>> futures = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int from = (int) ((long) n * c / chunks);
+            final int to = (int) ((long) n * (c+1) / chunks);
+            futures.add(pool.submit(() -> chunk.solve(from, to)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving boards", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving boards failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // reports boards/sec for 1, 2, 4, ... threads up to the number of cores
+    // args[0] - dictionary file, args[1] - number of random 4x4 boards (default 100000)
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        BoggleSolver solver = new BoggleSolver(in.readAllStrings());
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        BoggleBoard[] boards = new BoggleBoard[n];
+        for (int i = 0; i < n; i++) {
+            boards[i] = new BoggleBoard();
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        double singleThreaded = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, cores)) {
+            try (BoggleBatchSolver batch = new BoggleBatchSolver(solver, threads)) {
+                // warm-up run, so JIT compilation does not count towards the first measurement
+                batch.scoreAll(Arrays.copyOf(boards, Math.min(n, 10000)));
+                long start = System.nanoTime();
+                int[] scores = batch.scoreAll(boards);
+                long end = System.nanoTime();
+                long total = 0;
+                for (int score : scores) total += score;
+                double boardsPerSec = n / ((end - start) / 1e9);
+                if (threads == 1) singleThreaded = boardsPerSec;
+                StdOut.printf("threads = %2d, boards/sec = %10.0f, speedup = %5.2f, total score = %d%n",
+                        threads, boardsPerSec, boardsPerSec / singleThreaded, total);
+            }
+            if (threads == cores) break;
+        }
+    }
+}
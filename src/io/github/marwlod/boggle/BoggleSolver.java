@@ -2,116 +2,267 @@ package io.github.marwlod.boggle;
 
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
+import io.github.marwlod.metrics.Counter;
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BoggleSolver {
-    private final RWayTrie dictionary;
+    private static final Histogram NODES_VISITED = Metrics.histogram("boggle.trie.nodesVisited");
+    private static final Histogram DFS_DEPTH = Metrics.histogram("boggle.dfs.maxDepth");
+    private static final Counter BOARDS = Metrics.counter("boggle.boards");
+    private static final Counter WORDS_FOUND = Metrics.counter("boggle.wordsFound");
+    // the trie is walked through its flat image, which is the same whether built here or mapped from a file
+    private final DictionaryImage dictionary;
 
-    private static class Point {
-        private final int x;
-        private final int y;
+    // board graphs depend only on the dimensions, so they are built once per rows x cols
+    private static final Map<Long, BoardGraph> GRAPHS = new ConcurrentHashMap<>();
 
-        private Point(int x, int y) {
-            this.x = x;
-            this.y = y;
+    // neighbours of every die of a rows x cols board, die at (row, col) is cell row * cols + col,
+    // neighbours of cell c are adj[adjStart[c]] ... adj[adjStart[c+1] - 1]
+    private static class BoardGraph {
+        private final int[] adjStart;
+        private final int[] adj;
+
+        private BoardGraph(int rows, int cols) {
+            adjStart = new int[rows * cols + 1];
+            int[] neighbours = new int[8 * rows * cols];
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    adjStart[row * cols + col] = count;
+                    for (int dRow = -1; dRow <= 1; dRow++) {
+                        for (int dCol = -1; dCol <= 1; dCol++) {
+                            int r = row + dRow;
+                            int c = col + dCol;
+                            if ((dRow != 0 || dCol != 0) && r >= 0 && r < rows && c >= 0 && c < cols) {
+                                neighbours[count++] = r * cols + c;
+                            }
+                        }
+                    }
+                }
+            }
+            adjStart[rows * cols] = count;
+            adj = Arrays.copyOf(neighbours, count);
+        }
+
+        private static BoardGraph of(int rows, int cols) {
+            return GRAPHS.computeIfAbsent(((long) rows << 32) | cols, key -> new BoardGraph(rows, cols));
         }
     }
 
-    private static class BagNode {
-        private Point val;
-        private BagNode next;
+    // scratch space of a single search, one per thread, reused from board to board
+    // so solving many boards does not allocate per starting die
+    static class Search {
+        private BoardGraph graph;
+        private char[] letters = new char[0];
+        // visited dice of boards too big for a long bitmask
+        private boolean[] marked = new boolean[0];
+        // bit i set if letter 'A'+i can be spelled on the board
+        private int boardLetters;
+        // ids of words found on the board, each word once
+        private int[] hits = new int[64];
+        private int hitCount;
+        private int score;
+        // bit set for every id in hits, cleared through hits so resetting costs O(hits), not O(dictionary)
+        private long[] found = new long[0];
+        // trie nodes visited by DFS and its current and maximal depth, counted only with metrics enabled
+        private long nodesVisited;
+        private int depth;
+        private int maxDepth;
+
+        // number of distinct words found on the last board
+        int hitCount() {
+            return hitCount;
+        }
+
+        // id of i-th word found on the last board
+        int hit(int i) {
+            return hits[i];
+        }
+
+        // total score of the last board
+        int score() {
+            return score;
+        }
+
+        private void reset(BoggleBoard board, int words) {
+            if (found.length < (words + 63) / 64) found = new long[(words + 63) / 64];
+            for (int i = 0; i < hitCount; i++) {
+                found[hits[i] >>> 6] = 0;
+            }
+            hitCount = 0;
+            score = 0;
+            nodesVisited = 0;
+            maxDepth = 0;
+            final int cells = board.rows() * board.cols();
+            graph = BoardGraph.of(board.rows(), board.cols());
+            if (letters.length < cells) {
+                letters = new char[cells];
+                marked = new boolean[cells];
+            }
+            boardLetters = 0;
+            for (int row = 0, cell = 0; row < board.rows(); row++) {
+                for (int col = 0; col < board.cols(); col++, cell++) {
+                    letters[cell] = board.getLetter(row, col);
+                    boardLetters |= 1 << (letters[cell]-'A');
+                }
+            }
+            if ((boardLetters & 1 << ('Q'-'A')) != 0) boardLetters |= 1 << ('U'-'A');
+        }
 
-        private BagNode(Point val, BagNode next) {
-            this.val = val;
-            this.next = next;
+        private void hit(int id, int points) {
+            if ((found[id >>> 6] & (1L << id)) != 0) return;
+            found[id >>> 6] |= 1L << id;
+            if (hitCount == hits.length) hits = Arrays.copyOf(hits, 2 * hitCount);
+            hits[hitCount++] = id;
+            score += points;
         }
     }
 
     // Initializes the data structure using the given array of strings as the dictionary.
     // (You can assume each word in the dictionary contains only the uppercase letters A through Z.)
     public BoggleSolver(String[] dictionary) {
-        this.dictionary = new RWayTrie();
-        for (String word : dictionary) {
-            this.dictionary.put(word);
-        }
+        if (dictionary == null) throw new IllegalArgumentException("Dictionary cannot be null");
+        this.dictionary = DictionaryImage.of(dictionary);
+    }
+
+    // solver over a dictionary compiled beforehand, see DictionaryImage.compile()
+    public BoggleSolver(DictionaryImage dictionary) {
+        if (dictionary == null) throw new IllegalArgumentException("Dictionary cannot be null");
+        this.dictionary = dictionary;
     }
 
     // Returns the set of all valid words in the given Boggle board, as an Iterable.
     public Iterable<String> getAllValidWords(BoggleBoard board) {
-        final Set<String> validWords = new HashSet<>();
-        final BagNode[][] adjMatrix = new BagNode[board.cols()][board.rows()];
-        for (int x = 0; x < board.cols(); x++) {
-            for (int y = 0; y < board.rows(); y++) {
-                adjMatrix[x][y] = adj(board, x, y);
-            }
-        }
-        for (int x = 0; x < board.cols(); x++) {
-            for (int y = 0; y < board.rows(); y++) {
-                boolean[][] marked = new boolean[board.cols()][board.rows()];
-                String startingString = board.getLetter(y, x) == 'Q' ? "QU" : String.valueOf(board.getLetter(y, x));
-                addValidWords(adjMatrix, marked, startingString, validWords, board, x, y);
-            }
+        final Search search = new Search();
+        search(board, search);
+        final List<String> validWords = new ArrayList<>(search.hitCount());
+        for (int i = 0; i < search.hitCount(); i++) {
+            validWords.add(dictionary.word(search.hit(i)));
         }
         return validWords;
     }
 
-    private void addValidWords(BagNode[][] adjMatrix, boolean[][] marked, String currWord, Set<String> validWords, BoggleBoard board, int x, int y) {
-        if (currWord.length() > 2 && dictionary.contains(currWord)) {
-            validWords.add(currWord);
+    // ids of all valid words in the given board, each id once
+    public int[] getAllValidWordIds(BoggleBoard board) {
+        final Search search = new Search();
+        search(board, search);
+        return Arrays.copyOf(search.hits, search.hitCount());
+    }
+
+    // total score of all valid words in the given board
+    public int totalScore(BoggleBoard board) {
+        final Search search = new Search();
+        search(board, search);
+        return search.score();
+    }
+
+    // dictionary the solver searches, for package classes walking the trie themselves
+    DictionaryImage dictionary() {
+        return dictionary;
+    }
+
+    // dictionary word with given id
+    public String wordOf(int id) {
+        return dictionary.word(id);
+    }
+
+    // find all valid words of the board, results are kept in search until its next use
+    void search(BoggleBoard board, Search search) {
+        search.reset(board, dictionary.size());
+        final int root = dictionary.root();
+        if (root < 0) return;
+        final int cells = board.rows() * board.cols();
+        for (int cell = 0; cell < cells; cell++) {
+            final int node = advance(root, search.letters[cell], search.boardLetters);
+            if (node < 0) continue;
+            if (cells <= Long.SIZE) addValidWords(search, node, cell, 0L);
+            else addValidWords(search, node, cell);
         }
-        marked[x][y] = true;
-        for (BagNode trav = adjMatrix[x][y]; trav.next != null; trav = trav.next) {
-            if (!marked[trav.val.x][trav.val.y]) {
-                final String nextWord = currWord + (board.getLetter(trav.val.y, trav.val.x) == 'Q' ? "QU" : board.getLetter(trav.val.y, trav.val.x));
-                if (dictionary.hasWordsWithPrefix(nextWord)) {
-                    addValidWords(adjMatrix, marked, nextWord, validWords, board, trav.val.x, trav.val.y);
-                    marked[trav.val.x][trav.val.y] = false;
-                }
-            }
+        if (Metrics.ENABLED) {
+            NODES_VISITED.record(search.nodesVisited);
+            DFS_DEPTH.record(search.maxDepth);
+            BOARDS.increment();
+            WORDS_FOUND.add(search.hitCount);
         }
     }
 
-    private BagNode adj(BoggleBoard board, int x, int y) {
-        final BagNode root = new BagNode(null, null);
-        BagNode trav = root;
-        // up
-        if (y < board.rows()-1) trav = putAndTraverse(trav, x, y+1);
-        // upper right
-        if (x < board.cols()-1 && y < board.rows()-1) trav = putAndTraverse(trav, x+1, y+1);
-        // right
-        if (x < board.cols()-1) trav = putAndTraverse(trav, x+1, y);
-        // down right
-        if (x < board.cols()-1 && y > 0) trav = putAndTraverse(trav, x+1, y-1);
-        // down
-        if (y > 0) trav = putAndTraverse(trav, x, y-1);
-        // down left
-        if (x > 0 && y > 0) trav = putAndTraverse(trav, x-1, y-1);
-        // left
-        if (x > 0) trav = putAndTraverse(trav, x-1, y);
-        // upper left
-        if (x > 0 && y < board.rows()-1) putAndTraverse(trav, x-1, y+1);
-        return root;
-    }
-
-    private BagNode putAndTraverse(BagNode trav, int x, int y) {
-        trav.val = new Point(x, y);
-        trav.next = new BagNode(null, null);
-        trav = trav.next;
-        return trav;
+    // node is the trie cursor for the word, whose last letter is on the die in cell,
+    // visited has a bit set for every die already used by the word (boards of up to 64 dice)
+    private void addValidWords(Search search, int node, int cell, long visited) {
+        if (Metrics.ENABLED) enter(search);
+        // words shorter than 3 letters score 0 and are not valid
+        final int points = dictionary.wordScore(node);
+        if (points > 0) search.hit(dictionary.wordId(node), points);
+        visited |= 1L << cell;
+        final int[] adj = search.graph.adj;
+        for (int i = search.graph.adjStart[cell], end = search.graph.adjStart[cell+1]; i < end; i++) {
+            final int neighbour = adj[i];
+            if ((visited & (1L << neighbour)) != 0) continue;
+            final int next = advance(node, search.letters[neighbour], search.boardLetters);
+            if (next >= 0) addValidWords(search, next, neighbour, visited);
+        }
+        if (Metrics.ENABLED) search.depth--;
+    }
+
+    // same as above for boards with more than 64 dice, visited dice are kept in search.marked
+    private void addValidWords(Search search, int node, int cell) {
+        if (Metrics.ENABLED) enter(search);
+        final int points = dictionary.wordScore(node);
+        if (points > 0) search.hit(dictionary.wordId(node), points);
+        search.marked[cell] = true;
+        final int[] adj = search.graph.adj;
+        for (int i = search.graph.adjStart[cell], end = search.graph.adjStart[cell+1]; i < end; i++) {
+            final int neighbour = adj[i];
+            if (search.marked[neighbour]) continue;
+            final int next = advance(node, search.letters[neighbour], search.boardLetters);
+            if (next >= 0) addValidWords(search, next, neighbour);
+        }
+        search.marked[cell] = false;
+        if (Metrics.ENABLED) search.depth--;
+    }
+
+    private static void enter(Search search) {
+        search.nodesVisited++;
+        search.maxDepth = Math.max(search.maxDepth, ++search.depth);
+    }
+
+    // move the cursor by the letter on a die, 'Q' die stands for "QU" so it takes two steps;
+    // -1 also if words below need a letter that is not on the board
+    private int advance(int node, char letter, int boardLetters) {
+        int next = dictionary.next(node, letter);
+        if (letter == 'Q' && next >= 0) next = dictionary.next(next, 'U');
+        if (next < 0 || (dictionary.requiredLetters(next) & ~boardLetters) != 0) return -1;
+        return next;
     }
 
     // Returns the score of the given word if it is in the dictionary, zero otherwise.
     // (You can assume the word contains only the uppercase letters A through Z.)
     public int scoreOf(String word) {
-        if (!dictionary.contains(word)) return 0;
+        if (word == null) throw new IllegalArgumentException("Word cannot be null");
+        final int node = dictionary.get(word);
+        return node < 0 ? 0 : dictionary.wordScore(node);
+    }
+
+    // score of the dictionary word with given id
+    public int scoreOf(int id) {
+        return dictionary.score(id);
+    }
+
+    // points for a dictionary word of given length
+    static int points(int length) {
         final int points;
-        if (word.length() < 3) points = 0;
-        else if (word.length() == 3 || word.length() == 4) points = 1;
-        else if (word.length() == 5) points = 2;
-        else if (word.length() == 6) points = 3;
-        else if (word.length() == 7) points = 5;
+        if (length < 3) points = 0;
+        else if (length == 3 || length == 4) points = 1;
+        else if (length == 5) points = 2;
+        else if (length == 6) points = 3;
+        else if (length == 7) points = 5;
         else points = 11;
         return points;
     }
@@ -123,10 +274,10 @@ public class BoggleSolver {
         BoggleBoard board = new BoggleBoard(args[1]);
         int score = 0;
         long start = System.nanoTime();
-            for (String word : solver.getAllValidWords(board)) {
-                StdOut.println(word);
-                score += solver.scoreOf(word);
-            }
+        for (int id : solver.getAllValidWordIds(board)) {
+            StdOut.println(solver.wordOf(id));
+            score += solver.scoreOf(id);
+        }
         long end = System.nanoTime();
         StdOut.println("Score = " + score);
         StdOut.println("Program duration: " + ((end - start)/ (1000*1000)) + "ms");
@@ -0,0 +1,250 @@
+package io.github.marwlod.boggle;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// dictionary compiled into a flat trie that is queried in place, either from a heap buffer or from a
+// memory-mapped file written by compile(), so loading a dictionary image costs one mmap and JVMs on the
+// same host share its pages; nodes are referred to by their index, -1 stands for no node
+//
+// layout, all ints little-endian:
+// header: MAGIC, VERSION, node count, word count
+// nodes:  4 ints per node in breadth-first order, so the children of every node are next to each other:
+//         letters of the children (bit i for 'A'+i), letters every word below the node still needs,
+//         id of the word ending at the node << 4 | its score, or -1, index of the first child
+// words:  word count + 1 entries, offset into the letters << 4 | score of the word with that id (0 in the
+//         last entry), then the letters of all words, one byte each, padded to 4 bytes
+public final class DictionaryImage {
+    private static final int MAGIC = 0x42444943;
+    private static final int VERSION = 4;
+    private static final int HEADER_INTS = 4;
+    private static final int NODE_INTS = 4;
+    private static final int CHILDREN = 0;
+    private static final int REQUIRED = 1;
+    private static final int WORD = 2;
+    private static final int FIRST_CHILD = 3;
+    private static final int SCORE_BITS = 4;
+    private static final int ALL_LETTERS = (1 << 26) - 1;
+
+    private final ByteBuffer bytes;
+    private final IntBuffer ints;
+    private final int nodes;
+    private final int words;
+    private final int offsetsStart;
+    private final int lettersStart;
+
+    private DictionaryImage(ByteBuffer buffer) {
+        bytes = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        ints = bytes.asIntBuffer();
+        if (ints.capacity() < HEADER_INTS || ints.get(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a dictionary image");
+        }
+        if (ints.get(1) != VERSION) throw new IllegalArgumentException("Unsupported dictionary image version");
+        nodes = ints.get(2);
+        words = ints.get(3);
+        offsetsStart = HEADER_INTS + nodes * NODE_INTS;
+        lettersStart = (offsetsStart + words + 1) * Integer.BYTES;
+        if (lettersStart > bytes.capacity() || lettersStart + offset(words) > bytes.capacity()) {
+            throw new IllegalArgumentException("Truncated dictionary image");
+        }
+    }
+
+    // image of the dictionary in a heap buffer, words are scored as in BoggleSolver; the image is built straight
+    // from the sorted words, whose ids follow that order: the words below every node form a range of them, and
+    // the ranges of its children split it by the next letter
+    static DictionaryImage of(String[] dictionary) {
+        for (String word : dictionary) {
+            if (word == null) throw new IllegalArgumentException("Dictionary word cannot be null");
+        }
+        final String[] sorted = dictionary.clone();
+        Arrays.sort(sorted);
+        // distinct words; every letter after the common prefix with the previous word adds a node
+        int words = 0;
+        int letters = 0;
+        int nodes = sorted.length == 0 ? 0 : 1;
+        for (String word : sorted) {
+            if (words > 0 && word.equals(sorted[words-1])) continue;
+            final int common = words == 0 ? 0 : commonPrefix(sorted[words-1], word);
+            nodes += word.length() - common;
+            letters += word.length();
+            if (letters >= 1 << (Integer.SIZE - 1 - SCORE_BITS)) {
+                throw new IllegalArgumentException("Too many letters for the image");
+            }
+            sorted[words++] = word;
+        }
+
+        final int size = (HEADER_INTS + nodes * NODE_INTS + words + 1) * Integer.BYTES + (letters + 3) / 4 * 4;
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        final IntBuffer ints = buffer.asIntBuffer();
+        ints.put(MAGIC).put(VERSION).put(nodes).put(words);
+        // breadth-first, node i covers the words from[i] ... to[i]-1 with a common prefix of depth[i] letters,
+        // and its children get the next indices when it is written
+        final int[] from = new int[nodes];
+        final int[] to = new int[nodes];
+        final int[] depth = new int[nodes];
+        if (nodes > 0) to[0] = words;
+        for (int i = 0, next = 1; i < nodes; i++) {
+            final int d = depth[i];
+            int w = from[i];
+            int word = -1;
+            if (sorted[w].length() == d) {
+                word = w << SCORE_BITS | BoggleSolver.points(d);
+                w++;
+            }
+            int children = 0;
+            final int firstChild = next;
+            while (w < to[i]) {
+                final char c = sorted[w].charAt(d);
+                children |= 1 << (c-'A');
+                from[next] = w;
+                while (w < to[i] && sorted[w].charAt(d) == c) w++;
+                to[next] = w;
+                depth[next++] = d + 1;
+            }
+            final int base = HEADER_INTS + i * NODE_INTS;
+            ints.put(base + CHILDREN, children);
+            ints.put(base + WORD, word);
+            ints.put(base + FIRST_CHILD, firstChild);
+        }
+        // children come after their parent, so going backwards the required letters of every child are known
+        // before they are needed; a word ending at the node requires nothing more
+        for (int i = nodes - 1; i >= 0; i--) {
+            final int base = HEADER_INTS + i * NODE_INTS;
+            int required = ints.get(base + WORD) >= 0 ? 0 : ALL_LETTERS;
+            int child = ints.get(base + FIRST_CHILD);
+            for (int bits = ints.get(base + CHILDREN); bits != 0; bits &= bits - 1, child++) {
+                required &= Integer.lowestOneBit(bits) | ints.get(HEADER_INTS + child * NODE_INTS + REQUIRED);
+            }
+            ints.put(base + REQUIRED, required);
+        }
+
+        int position = HEADER_INTS + nodes * NODE_INTS;
+        int offset = 0;
+        for (int id = 0; id < words; id++) {
+            ints.put(position++, offset << SCORE_BITS | BoggleSolver.points(sorted[id].length()));
+            offset += sorted[id].length();
+        }
+        ints.put(position++, offset << SCORE_BITS);
+        buffer.position(position * Integer.BYTES);
+        for (int id = 0; id < words; id++) {
+            buffer.put(sorted[id].getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.clear();
+        return new DictionaryImage(buffer);
+    }
+
+    private static int commonPrefix(String a, String b) {
+        final int length = Math.min(a.length(), b.length());
+        int d = 0;
+        while (d < length && a.charAt(d) == b.charAt(d)) d++;
+        return d;
+    }
+
+    // writes the image of the dictionary to a file, words are scored as in BoggleSolver
+    public static void compile(String[] dictionary, Path path) throws IOException {
+        if (dictionary == null || path == null) throw new IllegalArgumentException("Arguments cannot be null");
+        final ByteBuffer buffer = of(dictionary).bytes.duplicate();
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // maps an image written by compile(), nothing is read until the trie is walked
+    public static DictionaryImage open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Dictionary image too large: " + path);
+            return new DictionaryImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // number of words, ids are 0 ... size()-1
+    public int size() {
+        return words;
+    }
+
+    // word with given id
+    public String word(int id) {
+        if (id < 0 || id >= words) throw new IllegalArgumentException("Invalid word id");
+        final int from = offset(id);
+        final int to = offset(id + 1);
+        final byte[] letters = new byte[to - from];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = bytes.get(lettersStart + from + i);
+        }
+        return new String(letters, StandardCharsets.US_ASCII);
+    }
+
+    // score stored with the word with given id
+    public int score(int id) {
+        if (id < 0 || id >= words) throw new IllegalArgumentException("Invalid word id");
+        return ints.get(offsetsStart + id) & ((1 << SCORE_BITS) - 1);
+    }
+
+    // offset of the letters of the word with given id, for id == size() the number of all letters
+    private int offset(int id) {
+        return ints.get(offsetsStart + id) >>> SCORE_BITS;
+    }
+
+    // node at the empty prefix, -1 if there are no words
+    int root() {
+        return nodes == 0 ? -1 : 0;
+    }
+
+    // child of node reached by given letter, -1 if no word continues with it
+    int next(int node, char c) {
+        final int base = HEADER_INTS + node * NODE_INTS;
+        final int children = ints.get(base + CHILDREN);
+        final int bit = 1 << (c-'A');
+        if ((children & bit) == 0) return -1;
+        return ints.get(base + FIRST_CHILD) + Integer.bitCount(children & (bit-1));
+    }
+
+    // letters that every word below node still needs
+    int requiredLetters(int node) {
+        return ints.get(HEADER_INTS + node * NODE_INTS + REQUIRED);
+    }
+
+    // id of the word ending at node, -1 if none
+    int wordId(int node) {
+        final int word = ints.get(HEADER_INTS + node * NODE_INTS + WORD);
+        return word < 0 ? -1 : word >>> SCORE_BITS;
+    }
+
+    // score of the word ending at node, 0 if none
+    int wordScore(int node) {
+        final int word = ints.get(HEADER_INTS + node * NODE_INTS + WORD);
+        return word < 0 ? 0 : word & ((1 << SCORE_BITS) - 1);
+    }
+
+    // node at which given word ends, -1 if the word is not present
+    int get(String word) {
+        int node = root();
+        for (int d = 0; d < word.length() && node >= 0; d++) {
+            node = next(node, word.charAt(d));
+        }
+        return node >= 0 && wordId(node) >= 0 ? node : -1;
+    }
+
+    // args[0] - dictionary file, args[1] - image file to write
+    public static void main(String[] args) throws IOException {
+        String[] dictionary = new In(args[0]).readAllStrings();
+        long start = System.nanoTime();
+        compile(dictionary, Paths.get(args[1]));
+        StdOut.printf("%d words compiled in %d ms%n", dictionary.length, (System.nanoTime() - start) / 1000000);
+    }
+}
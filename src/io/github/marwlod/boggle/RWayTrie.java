@@ -1,31 +1,95 @@
 package io.github.marwlod.boggle;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class RWayTrie {
     // suited for strings containing only uppercase letters of english alphabet
     private static final int R = 26;
+    private static final int ALL_LETTERS = (1 << R) - 1;
+    private final List<String> words = new ArrayList<>();
+    private final List<Node> wordNodes = new ArrayList<>();
     private Node root;
 
-    private static class Node {
-        private boolean present;
+    // exposed to the package as a cursor, so that callers walking the trie letter by letter
+    // (e.g. boggle DFS) can move one child per step instead of re-walking from the root
+    static class Node {
+        // id of the word ending at this node, -1 if there is no such word
+        private int id = -1;
+        private int score;
+        // bit i set if letter 'A'+i occurs in the rest of every word below this node,
+        // lets callers skip the whole subtree if any of these letters is unavailable
+        private int requiredLetters = ALL_LETTERS;
         // 'A' has index 0, 'Z' index 25
         private Node[] next = new Node[R];
+
+        // is there a word ending at this node?
+        boolean isWord() {
+            return id >= 0;
+        }
+
+        // id of the word ending at this node, -1 if none
+        int id() {
+            return id;
+        }
+
+        // score stored with the word ending at this node
+        int score() {
+            return score;
+        }
+
+        int requiredLetters() {
+            return requiredLetters;
+        }
+
+        // child reached by given letter, null if no word continues with it
+        Node next(char c) {
+            return next[c-'A'];
+        }
     }
 
     public RWayTrie() {
     }
 
+    // cursor positioned at the empty prefix, null if the trie is empty
+    Node root() {
+        return root;
+    }
+
+    // number of distinct words, ids are 0 ... size()-1 in order of insertion
+    public int size() {
+        return words.size();
+    }
+
+    // word with given id
+    public String word(int id) {
+        if (id < 0 || id >= words.size()) throw new IllegalArgumentException("Invalid word id");
+        return words.get(id);
+    }
+
+    // score stored with the word with given id
+    public int score(int id) {
+        if (id < 0 || id >= words.size()) throw new IllegalArgumentException("Invalid word id");
+        return wordNodes.get(id).score;
+    }
+
     public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+    // node at which given key ends, null if the key is not present
+    Node get(String key) {
         if (key == null) throw new IllegalArgumentException("argument to get() is null");
         Node trav = root;
         int d = 0;
         while (trav != null) {
-            if (d == key.length() && trav.present) return true;
+            if (d == key.length() && trav.isWord()) return trav;
             // there is key with this prefix, but this particular key is not present
-            else if (d == key.length()) return false;
+            else if (d == key.length()) return null;
             char c = key.charAt(d++);
             trav = trav.next[c-'A'];
         }
-        return false;
+        return null;
     }
 
     // are there any words in the trie that have given prefix?
@@ -42,14 +106,30 @@ public class RWayTrie {
     }
 
     public void put(String key) {
+        put(key, 0);
+    }
+
+    // put key with a score stored at its node, returns id of the key
+    public int put(String key, int score) {
         if (key == null) throw new IllegalArgumentException("first argument to put() is null");
+        // suffixLetters[d] - letters of key.substring(d)
+        int[] suffixLetters = new int[key.length() + 1];
+        for (int d = key.length() - 1; d >= 0; d--) {
+            suffixLetters[d] = suffixLetters[d+1] | 1 << (key.charAt(d)-'A');
+        }
         if (root == null) root = new Node();
         Node trav = root;
         int d = 0;
-        while (trav != null) {
+        while (true) {
+            trav.requiredLetters &= suffixLetters[d];
             if (d == key.length()) {
-                trav.present = true;
-                return;
+                if (trav.id < 0) {
+                    trav.id = words.size();
+                    words.add(key);
+                    wordNodes.add(trav);
+                }
+                trav.score = score;
+                return trav.id;
             }
             char c = key.charAt(d);
             if (trav.next[c-'A'] == null) {
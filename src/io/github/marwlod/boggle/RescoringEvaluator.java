@@ -0,0 +1,77 @@
+package io.github.marwlod.boggle;
+
+// score of a board whose letters change one die at a time, as used by the chains of BoardOptimizer; every
+// proposed board is scored with a full search, reusing one BoggleSolver.Search, as nearly every path of a
+// Boggle board goes through any given die and an update limited to them saves almost nothing
+//
+// propose() changes a letter and returns the new score, then either accept() keeps all the changes
+// proposed since the last accept() or reject(), or reject() goes back to the board before them
+final class RescoringEvaluator {
+    private final BoggleSolver solver;
+    private final BoggleSolver.Search search = new BoggleSolver.Search();
+    private final char[][] letters;
+    // letters and score as of the last accept() or reject()
+    private final char[][] accepted;
+    private int acceptedScore;
+    private int score;
+
+    RescoringEvaluator(BoggleSolver solver, char[][] board) {
+        this.solver = solver;
+        letters = new char[board.length][];
+        accepted = new char[board.length][];
+        for (int row = 0; row < board.length; row++) {
+            letters[row] = board[row].clone();
+            accepted[row] = board[row].clone();
+        }
+        score = rescore();
+        acceptedScore = score;
+    }
+
+    int score() {
+        return score;
+    }
+
+    char letter(int cell) {
+        return letters[cell / letters[0].length][cell % letters[0].length];
+    }
+
+    int cells() {
+        return letters.length * letters[0].length;
+    }
+
+    // board as the rows of its letters
+    char[][] board() {
+        final char[][] board = new char[letters.length][];
+        for (int row = 0; row < letters.length; row++) {
+            board[row] = letters[row].clone();
+        }
+        return board;
+    }
+
+    // put letter on the die in cell, returns the score of the board with all pending changes
+    int propose(int cell, char letter) {
+        if (letter(cell) == letter) return score;
+        letters[cell / letters[0].length][cell % letters[0].length] = letter;
+        score = rescore();
+        return score;
+    }
+
+    void accept() {
+        for (int row = 0; row < letters.length; row++) {
+            System.arraycopy(letters[row], 0, accepted[row], 0, letters[row].length);
+        }
+        acceptedScore = score;
+    }
+
+    void reject() {
+        for (int row = 0; row < letters.length; row++) {
+            System.arraycopy(accepted[row], 0, letters[row], 0, letters[row].length);
+        }
+        score = acceptedScore;
+    }
+
+    private int rescore() {
+        solver.search(new BoggleBoard(letters), search);
+        return search.score();
+    }
+}
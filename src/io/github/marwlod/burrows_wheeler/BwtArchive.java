@@ -0,0 +1,301 @@
+package io.github.marwlod.burrows_wheeler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// seekable Burrows-Wheeler archive: input is cut into blocks, every block is transformed, move-to-front
+// encoded and entropy coded on its own, and a trailing index records where each block starts in the
+// uncompressed and in the compressed data, so a reader only decodes the blocks covering what it reads
+//
+// the unit of decoding is the whole block: move-to-front and deflate are only decodable from the start of
+// a block, and inverting the transform from any row needs the ranks of the whole last column; so the first
+// read from a block costs O(block size) (inflate, move-to-front decode and inverse transform of the whole
+// block) however few bytes it returns, and the decoded block is cached as plain bytes, n bytes per block,
+// so further reads from it cost O(len); the block size is the trade-off between compression and the cost
+// of a cold read
+//
+// layout: MAGIC, block size, blocks, index, index offset (long), MAGIC
+// block:  length, original row, deflated move-to-front bytes
+// index:  block count, (uncompressed offset, compressed offset) of every block, total length
+public final class BwtArchive {
+    private static final int MAGIC = 0x42575442;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int EXT_ASCII_SIZE = 256;
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private BwtArchive() {
+    }
+
+    public static void write(InputStream in, OutputStream out) throws IOException {
+        write(in, out, DEFAULT_BLOCK_SIZE);
+    }
+
+    // compresses everything in `in` into `out`, neither stream is closed
+    public static void write(InputStream in, OutputStream out, int blockSize) throws IOException {
+        if (in == null || out == null) throw new IllegalArgumentException("Streams cannot be null");
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        final DataOutputStream data = new DataOutputStream(out);
+        long written = 0;
+        data.writeInt(MAGIC);
+        data.writeInt(blockSize);
+        written += 2 * Integer.BYTES;
+
+        long[] uncompressedOffsets = new long[16];
+        long[] compressedOffsets = new long[16];
+        int blocks = 0;
+        long total = 0;
+        final byte[] buffer = new byte[blockSize];
+        int length;
+        while ((length = readFully(in, buffer)) > 0) {
+            if (blocks == uncompressedOffsets.length) {
+                uncompressedOffsets = Arrays.copyOf(uncompressedOffsets, 2 * blocks);
+                compressedOffsets = Arrays.copyOf(compressedOffsets, 2 * blocks);
+            }
+            uncompressedOffsets[blocks] = total;
+            compressedOffsets[blocks] = written;
+            blocks++;
+            byte[] block = encodeBlock(Arrays.copyOf(buffer, length));
+            data.write(block);
+            written += block.length;
+            total += length;
+        }
+
+        final long indexOffset = written;
+        data.writeInt(blocks);
+        for (int i = 0; i < blocks; i++) {
+            data.writeLong(uncompressedOffsets[i]);
+            data.writeLong(compressedOffsets[i]);
+        }
+        data.writeLong(total);
+        data.writeLong(indexOffset);
+        data.writeInt(MAGIC);
+        data.flush();
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+            length += read;
+        }
+        return length;
+    }
+
+    private static byte[] encodeBlock(byte[] block) throws IOException {
+        final int n = block.length;
+        final CircularSuffixArray csa = new CircularSuffixArray(block);
+        final byte[] last = new byte[n];
+        int originalRow = -1;
+        for (int row = 0; row < n; row++) {
+            int rotation = csa.index(row);
+            if (rotation == 0) originalRow = row;
+            last[row] = block[(rotation + n - 1) % n];
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(n / 2 + 64);
+        final DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(n);
+        data.writeInt(originalRow);
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(MoveToFront.encode(last));
+        deflater.finish();
+        final byte[] chunk = new byte[1 << 16];
+        while (!deflater.finished()) {
+            data.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path, Reader.DEFAULT_CACHED_BLOCKS);
+    }
+
+    // random access to the uncompressed data of an archive; not thread-safe, every thread opens its own
+    public static final class Reader implements AutoCloseable {
+        private static final int DEFAULT_CACHED_BLOCKS = 4;
+        private final FileChannel channel;
+        private final long[] uncompressedOffsets;
+        private final long[] compressedOffsets;
+        private final long length;
+        // most recently used decoded blocks, reads that hit one only copy the bytes they return
+        private final Map<Integer, byte[]> cache;
+
+        private Reader(Path path, int cachedBlocks) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                final long size = channel.size();
+                if (size < 2 * Integer.BYTES + TRAILER_SIZE) throw new IOException("Not a BWT archive: " + path);
+                final ByteBuffer header = readAt(0, 2 * Integer.BYTES);
+                if (header.getInt() != MAGIC) throw new IOException("Not a BWT archive: " + path);
+                final ByteBuffer trailer = readAt(size - TRAILER_SIZE, TRAILER_SIZE);
+                final long indexOffset = trailer.getLong();
+                if (trailer.getInt() != MAGIC) throw new IOException("Truncated BWT archive: " + path);
+                final ByteBuffer index = readAt(indexOffset, (int) (size - TRAILER_SIZE - indexOffset));
+                final int blocks = index.getInt();
+                uncompressedOffsets = new long[blocks + 1];
+                compressedOffsets = new long[blocks + 1];
+                for (int i = 0; i < blocks; i++) {
+                    uncompressedOffsets[i] = index.getLong();
+                    compressedOffsets[i] = index.getLong();
+                }
+                length = index.getLong();
+                // sentinels, so that block i always ends where block i+1 starts
+                uncompressedOffsets[blocks] = length;
+                compressedOffsets[blocks] = indexOffset;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            cache = new LinkedHashMap<Integer, byte[]>(cachedBlocks, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                    return size() > cachedBlocks;
+                }
+            };
+        }
+
+        // length of the uncompressed data
+        public long length() {
+            return length;
+        }
+
+        // len bytes of the uncompressed data starting at offset, every block not in the cache is decoded whole
+        public byte[] read(long offset, int len) throws IOException {
+            if (offset < 0 || len < 0 || offset > length - len) {
+                throw new IllegalArgumentException("Range out of bounds");
+            }
+            final byte[] result = new byte[len];
+            int written = 0;
+            int block = blockOf(offset);
+            while (written < len) {
+                final long blockStart = uncompressedOffsets[block];
+                final int from = (int) (offset + written - blockStart);
+                final int to = (int) Math.min(uncompressedOffsets[block + 1] - blockStart, from + (long) (len - written));
+                System.arraycopy(block(block), from, result, written, to - from);
+                written += to - from;
+                block++;
+            }
+            return result;
+        }
+
+        // index of the block containing given uncompressed offset
+        private int blockOf(long offset) {
+            int lo = 0;
+            int hi = uncompressedOffsets.length - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (uncompressedOffsets[mid] <= offset) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo;
+        }
+
+        private byte[] block(int i) throws IOException {
+            byte[] block = cache.get(i);
+            if (block == null) {
+                final long start = compressedOffsets[i];
+                block = decodeBlock(readAt(start, (int) (compressedOffsets[i + 1] - start)));
+                cache.put(i, block);
+            }
+            return block;
+        }
+
+        private ByteBuffer readAt(long position, int size) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // uncompressed bytes of a block: the last column of the sorted rotations is inflated and move-to-front
+    // decoded, then the text is read backwards with the LF-mapping from the row of the original rotation
+    private static byte[] decodeBlock(ByteBuffer payload) throws IOException {
+        final int n = payload.getInt();
+        final int originalRow = payload.getInt();
+        final byte[] encoded = new byte[n];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload.array(), payload.position(), payload.remaining());
+            int inflated = 0;
+            while (inflated < n) {
+                int count = inflater.inflate(encoded, inflated, n - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Corrupted block");
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block", e);
+        } finally {
+            inflater.end();
+        }
+        final byte[] last = MoveToFront.decode(encoded);
+
+        final int[] counts = new int[EXT_ASCII_SIZE + 1];
+        for (byte c : last) {
+            counts[(c & 0xFF) + 1]++;
+        }
+        for (int r = 0; r < EXT_ASCII_SIZE; r++) {
+            counts[r + 1] += counts[r];
+        }
+        // lf[row] is the row of the rotation starting one byte before the rotation at row
+        final int[] lf = new int[n];
+        for (int row = 0; row < n; row++) {
+            lf[row] = counts[last[row] & 0xFF]++;
+        }
+        final byte[] text = new byte[n];
+        for (int position = n - 1, row = originalRow; position >= 0; position--) {
+            text[position] = last[row];
+            row = lf[row];
+        }
+        return text;
+    }
+
+    // if args[0] is "-", compress standard input to standard output, args[1] - optional block size
+    // if args[0] is "+", decompress the archive args[1] to standard output,
+    // or only args[3] bytes starting at offset args[2] when they are given
+    public static void main(String[] args) throws IOException {
+        if ("-".equals(args[0])) {
+            int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BLOCK_SIZE;
+            write(System.in, System.out, blockSize);
+            System.out.flush();
+        } else if ("+".equals(args[0])) {
+            try (Reader reader = open(Paths.get(args[1]))) {
+                long offset = args.length > 2 ? Long.parseLong(args[2]) : 0;
+                long end = args.length > 3 ? offset + Long.parseLong(args[3]) : reader.length();
+                for (long position = offset; position < end; position += DEFAULT_BLOCK_SIZE) {
+                    System.out.write(reader.read(position, (int) Math.min(DEFAULT_BLOCK_SIZE, end - position)));
+                }
+                System.out.flush();
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+}
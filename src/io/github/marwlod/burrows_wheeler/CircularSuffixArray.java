@@ -1,22 +1,52 @@
 package io.github.marwlod.burrows_wheeler;
 
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
+
 import java.util.Arrays;
 
 public class CircularSuffixArray {
+    // suffix comparisons of strings outside extended ASCII, RadixSort counts the bytes it reads for all others
+    private static final Histogram FALLBACK_COMPARISONS = Metrics.histogram("csa.fallback.comparisons");
     private final int length;
-    private final Integer[] suffixes;
+    private final int[] suffixes;
 
     // circular suffix array of s
     public CircularSuffixArray(String s) {
         if (s == null) throw new IllegalArgumentException("Argument cannot be null");
         length = s.length();
-        suffixes = new Integer[length];
-        for (int i = 0; i < length; i++) {
-            suffixes[i] = i;
+        final byte[] bytes = toExtendedAscii(s);
+        suffixes = bytes != null ? RadixSort.sortRotations(bytes) : sortByComparison(s);
+    }
+
+    // circular suffix array of raw bytes, compared as unsigned
+    public CircularSuffixArray(byte[] bytes) {
+        if (bytes == null) throw new IllegalArgumentException("Argument cannot be null");
+        length = bytes.length;
+        suffixes = RadixSort.sortRotations(bytes);
+    }
+
+    // bytes of s, or null if any of its chars does not fit in extended ASCII
+    private static byte[] toExtendedAscii(String s) {
+        final byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = s.charAt(i);
+            if (c > 0xFF) return null;
+            bytes[i] = (byte) c;
         }
+        return bytes;
+    }
 
-        // TODO could be improved using 3-way radix quicksort
-        Arrays.sort(suffixes, (first, second) -> {
+    // general unicode strings, radix sort only handles 256 distinct chars
+    private static int[] sortByComparison(String s) {
+        final int length = s.length();
+        final Integer[] boxed = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            boxed[i] = i;
+        }
+        final long[] comparisons = new long[1];
+        Arrays.sort(boxed, (first, second) -> {
+            if (Metrics.ENABLED) comparisons[0]++;
             for (int i = 0; i < length; i++) {
                 int thisChar = s.charAt(first++ % length);
                 int thatChar = s.charAt(second++ % length);
@@ -26,6 +56,12 @@ public class CircularSuffixArray {
             }
             return 0;
         });
+        if (Metrics.ENABLED) FALLBACK_COMPARISONS.record(comparisons[0]);
+        final int[] suffixes = new int[length];
+        for (int i = 0; i < length; i++) {
+            suffixes[i] = boxed[i];
+        }
+        return suffixes;
     }
 
     // length of s
@@ -0,0 +1,303 @@
+package io.github.marwlod.burrows_wheeler;
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// FM-index: full-text search over the Burrows-Wheeler transform of a text, count() takes O(|pattern|)
+// and locate() additionally O(saInterval) per occurrence, the text itself is never reconstructed;
+// unlike BurrowsWheeler.transform() the rotations are taken of text + end marker ($ below, smaller
+// than any byte), so that matches never wrap around from the end of the text to its beginning
+//
+// everything lives in one ByteBuffer, a heap one after build() or a memory-mapped file after open():
+// header:  MAGIC, rows (text length + 1), row of $ in the last column, occ interval, sa interval, samples
+// counts:  257 ints, counts[c] is the first row starting with byte c
+// supers:  for every super interval rows (the largest multiple of occ interval up to 65536), 256 ints,
+//          occurrences of every byte in the last column before that row
+// occ:     for every occ interval rows, 256 unsigned shorts, occurrences of every byte in the last column
+//          before that row counted from the start of its super interval
+// last:    last column, one byte per row, the byte at the row of $ is meaningless; padded to 8 bytes
+// marked:  bit per row, set when the text position of the row is a multiple of sa interval
+// rank:    int per 64 rows, marked rows before them
+// samples: text positions of the marked rows in row order
+//
+// the last column is kept uncompressed, so that occ() can scan it in place; the index takes about
+// (1 + 512 / occ interval + 3/16 + 4 / sa interval) bytes per byte of text, 1.8 with the default intervals,
+// and is built from the text, not from a BwtArchive, whose blocks are only decodable whole
+public final class FmIndex {
+    private static final int MAGIC = 0x464D4932;
+    private static final int EXT_ASCII_SIZE = 256;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    public static final int DEFAULT_OCC_INTERVAL = 1024;
+    public static final int DEFAULT_SA_INTERVAL = 32;
+    // relative occurrence counts have to fit in an unsigned short
+    private static final int MAX_SUPER_INTERVAL = 1 << 16;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int dollarRow;
+    private final int occInterval;
+    private final int saInterval;
+    private final int superInterval;
+    private final int countsOffset;
+    private final int supersOffset;
+    private final int occOffset;
+    private final int lastOffset;
+    private final int markedOffset;
+    private final int rankOffset;
+    private final int samplesOffset;
+
+    private FmIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an FM-index");
+        }
+        rows = buffer.getInt(4);
+        dollarRow = buffer.getInt(8);
+        occInterval = buffer.getInt(12);
+        saInterval = buffer.getInt(16);
+        final int samples = buffer.getInt(20);
+        if (occInterval < 1 || occInterval > MAX_SUPER_INTERVAL || saInterval < 1) {
+            throw new IllegalArgumentException("Corrupted FM-index header");
+        }
+        superInterval = MAX_SUPER_INTERVAL / occInterval * occInterval;
+        final int words = (rows + Long.SIZE - 1) / Long.SIZE;
+        countsOffset = HEADER_SIZE;
+        supersOffset = countsOffset + (EXT_ASCII_SIZE + 1) * Integer.BYTES;
+        occOffset = supersOffset + (rows / superInterval + 1) * EXT_ASCII_SIZE * Integer.BYTES;
+        lastOffset = occOffset + (rows / occInterval + 1) * EXT_ASCII_SIZE * Short.BYTES;
+        markedOffset = lastOffset + (rows + 7) / 8 * 8;
+        rankOffset = markedOffset + words * Long.BYTES;
+        samplesOffset = rankOffset + words * Integer.BYTES;
+        if ((long) samplesOffset + (long) samples * Integer.BYTES != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated FM-index");
+        }
+    }
+
+    public static FmIndex build(byte[] text) {
+        return build(text, DEFAULT_OCC_INTERVAL, DEFAULT_SA_INTERVAL);
+    }
+
+    // larger intervals make the index smaller and the queries slower
+    public static FmIndex build(byte[] text, int occInterval, int saInterval) {
+        if (text == null) throw new IllegalArgumentException("Text cannot be null");
+        if (occInterval < 1 || saInterval < 1) throw new IllegalArgumentException("Intervals must be positive");
+        if (occInterval > MAX_SUPER_INTERVAL) {
+            throw new IllegalArgumentException("Occ interval cannot be larger than " + MAX_SUPER_INTERVAL);
+        }
+        final int superInterval = MAX_SUPER_INTERVAL / occInterval * occInterval;
+        final int n = text.length;
+        final int rows = n + 1;
+        // row 0 is the suffix $ alone, row r > 0 is the suffix sa[r-1]
+        final int[] sa = RadixSort.sortSuffixes(text);
+        final byte[] last = new byte[rows];
+        int dollarRow = 0;
+        if (n > 0) last[0] = text[n-1];
+        int samples = 0;
+        for (int r = 1; r < rows; r++) {
+            int position = sa[r-1];
+            if (position == 0) dollarRow = r;
+            else last[r] = text[position-1];
+            if (position % saInterval == 0) samples++;
+        }
+
+        final int words = (rows + Long.SIZE - 1) / Long.SIZE;
+        final long size = HEADER_SIZE + (EXT_ASCII_SIZE + 1) * (long) Integer.BYTES
+                + (rows / superInterval + 1) * (long) EXT_ASCII_SIZE * Integer.BYTES
+                + (rows / occInterval + 1) * (long) EXT_ASCII_SIZE * Short.BYTES
+                + (rows + 7) / 8 * 8L + words * (long) (Long.BYTES + Integer.BYTES) + samples * (long) Integer.BYTES;
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Text too long for one index");
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(rows).putInt(dollarRow).putInt(occInterval).putInt(saInterval).putInt(samples);
+
+        // same as counts in BurrowsWheeler, shifted by one for $
+        final int[] counts = new int[EXT_ASCII_SIZE + 1];
+        for (byte c : text) {
+            counts[(c & 0xFF) + 1]++;
+        }
+        counts[0] = 1;
+        for (int c = 0; c < EXT_ASCII_SIZE; c++) {
+            counts[c + 1] += counts[c];
+        }
+        for (int count : counts) {
+            buffer.putInt(count);
+        }
+
+        // supers and occ are written side by side, occ starts after the last super
+        final int occStart = buffer.position() + (rows / superInterval + 1) * EXT_ASCII_SIZE * Integer.BYTES;
+        final int[] occ = new int[EXT_ASCII_SIZE];
+        final int[] superOcc = new int[EXT_ASCII_SIZE];
+        for (int r = 0, occPosition = occStart; r <= rows; r++) {
+            if (r % superInterval == 0) {
+                System.arraycopy(occ, 0, superOcc, 0, EXT_ASCII_SIZE);
+                for (int count : occ) buffer.putInt(count);
+            }
+            if (r % occInterval == 0) {
+                for (int c = 0; c < EXT_ASCII_SIZE; c++, occPosition += Short.BYTES) {
+                    buffer.putShort(occPosition, (short) (occ[c] - superOcc[c]));
+                }
+            }
+            if (r < rows && r != dollarRow) occ[last[r] & 0xFF]++;
+        }
+        buffer.position(occStart + (rows / occInterval + 1) * EXT_ASCII_SIZE * Short.BYTES);
+
+        buffer.put(last);
+        buffer.position(buffer.position() + (8 - rows % 8) % 8);
+
+        final long[] marked = new long[words];
+        for (int r = 1; r < rows; r++) {
+            if (sa[r-1] % saInterval == 0) marked[r >>> 6] |= 1L << (r & 63);
+        }
+        for (long word : marked) {
+            buffer.putLong(word);
+        }
+        int rank = 0;
+        for (long word : marked) {
+            buffer.putInt(rank);
+            rank += Long.bitCount(word);
+        }
+        for (int r = 1; r < rows; r++) {
+            if (sa[r-1] % saInterval == 0) buffer.putInt(sa[r-1]);
+        }
+        buffer.flip();
+        return new FmIndex(buffer);
+    }
+
+    // maps an index written by save(), queries read the file directly, nothing is deserialised
+    public static FmIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("FM-index too large: " + path);
+            return new FmIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer source = buffer.duplicate();
+            source.clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    // length of the indexed text
+    public int length() {
+        return rows - 1;
+    }
+
+    // number of occurrences of pattern in the text, overlapping ones included
+    public int count(byte[] pattern) {
+        final long range = range(pattern);
+        return (int) (range >>> 32) - (int) range;
+    }
+
+    // start positions of all occurrences of pattern in the text, in increasing order
+    public int[] locate(byte[] pattern) {
+        final long range = range(pattern);
+        final int lo = (int) range;
+        final int hi = (int) (range >>> 32);
+        final int[] positions = new int[hi - lo];
+        for (int row = lo; row < hi; row++) {
+            positions[row - lo] = position(row);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    // backward search, rows [lo, hi) start with pattern, packed as hi << 32 | lo
+    private long range(byte[] pattern) {
+        if (pattern == null) throw new IllegalArgumentException("Pattern cannot be null");
+        // the empty pattern occurs at every position, row 0 only stands for the end of the text
+        if (pattern.length == 0) return (long) rows << 32 | 1;
+        int lo = 0;
+        int hi = rows;
+        for (int i = pattern.length - 1; i >= 0 && lo < hi; i--) {
+            final int c = pattern[i] & 0xFF;
+            final int first = counts(c);
+            lo = first + occ(c, lo);
+            hi = first + occ(c, hi);
+        }
+        if (lo >= hi) return 0;
+        return (long) hi << 32 | lo;
+    }
+
+    // text position of the suffix at row, found by walking LF back to the nearest sampled position
+    private int position(int row) {
+        int steps = 0;
+        while (!marked(row)) {
+            row = lf(row);
+            steps++;
+        }
+        final int word = row >>> 6;
+        final long bits = buffer.getLong(markedOffset + word * Long.BYTES) & ((1L << (row & 63)) - 1);
+        final int rank = buffer.getInt(rankOffset + word * Integer.BYTES) + Long.bitCount(bits);
+        return buffer.getInt(samplesOffset + rank * Integer.BYTES) + steps;
+    }
+
+    private boolean marked(int row) {
+        return (buffer.getLong(markedOffset + (row >>> 6) * Long.BYTES) >>> (row & 63) & 1) != 0;
+    }
+
+    // row of the suffix one byte before the suffix at row, row must not be the row of $
+    private int lf(int row) {
+        final int c = buffer.get(lastOffset + row) & 0xFF;
+        return counts(c) + occ(c, row);
+    }
+
+    private int counts(int c) {
+        return buffer.getInt(countsOffset + c * Integer.BYTES);
+    }
+
+    // occurrences of byte c in the last column before row, scanned from the nearest checkpoint
+    private int occ(int c, int row) {
+        final int checkpoint = row / occInterval;
+        final int from = checkpoint * occInterval;
+        final byte b = (byte) c;
+        if (row - from > occInterval / 2 && from + occInterval <= rows) {
+            final int to = from + occInterval;
+            int count = checkpointCount(checkpoint + 1, c);
+            for (int r = row; r < to; r++) {
+                if (buffer.get(lastOffset + r) == b && r != dollarRow) count--;
+            }
+            return count;
+        }
+        int count = checkpointCount(checkpoint, c);
+        for (int r = from; r < row; r++) {
+            if (buffer.get(lastOffset + r) == b && r != dollarRow) count++;
+        }
+        return count;
+    }
+
+    private int checkpointCount(int checkpoint, int c) {
+        final int superCheckpoint = checkpoint * occInterval / superInterval;
+        return buffer.getInt(supersOffset + (superCheckpoint * EXT_ASCII_SIZE + c) * Integer.BYTES)
+                + (buffer.getShort(occOffset + (checkpoint * EXT_ASCII_SIZE + c) * Short.BYTES) & 0xFFFF);
+    }
+
+    // if args[0] is "-", index the file args[1] into the file args[2]
+    // if args[0] is "?", print count and positions of pattern args[2] in the index args[1]
+    public static void main(String[] args) throws IOException {
+        if ("-".equals(args[0])) {
+            build(Files.readAllBytes(Paths.get(args[1]))).save(Paths.get(args[2]));
+        } else if ("?".equals(args[0])) {
+            FmIndex index = open(Paths.get(args[1]));
+            byte[] pattern = args[2].getBytes(StandardCharsets.UTF_8);
+            StdOut.println(index.count(pattern));
+            for (int position : index.locate(pattern)) {
+                StdOut.println(position);
+            }
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -46,6 +46,41 @@ public class MoveToFront {
         BinaryStdOut.flush();
     }
 
+    // move-to-front encoding of a whole array, for callers that do not go through standard input
+    static byte[] encode(byte[] in) {
+        byte[] table = initialTable();
+        byte[] out = new byte[in.length];
+        for (int i = 0; i < in.length; i++) {
+            int position = 0;
+            while (table[position] != in[i]) position++;
+            out[i] = (byte) position;
+            System.arraycopy(table, 0, table, 1, position);
+            table[0] = in[i];
+        }
+        return out;
+    }
+
+    static byte[] decode(byte[] in) {
+        byte[] table = initialTable();
+        byte[] out = new byte[in.length];
+        for (int i = 0; i < in.length; i++) {
+            int position = in[i] & 0xFF;
+            byte c = table[position];
+            out[i] = c;
+            System.arraycopy(table, 0, table, 1, position);
+            table[0] = c;
+        }
+        return out;
+    }
+
+    private static byte[] initialTable() {
+        byte[] table = new byte[EXT_ASCII_SIZE];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) i;
+        }
+        return table;
+    }
+
     // if args[0] is "-", apply move-to-front encoding
     // if args[0] is "+", apply move-to-front decoding
     public static void main(String[] args) {
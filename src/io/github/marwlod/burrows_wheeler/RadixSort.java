@@ -0,0 +1,338 @@
+package io.github.marwlod.burrows_wheeler;
+
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// sorts int[] index arrays by byte[] keys without boxing or comparators, bytes compare as unsigned;
+// MSD radix sort for circular rotations and for suffixes (large subarrays are distributed by key-indexed counting,
+// medium ones by 3-way radix quicksort, small ones by insertion sort) and LSD radix sort for fixed-length keys;
+// MSD recursion goes one level deeper per byte of a common prefix, so it stops at DEPTH_LIMIT bytes and whatever
+// is still tied after that (periodic or highly repetitive input) is finished by prefix doubling (Larsson-Sadakane)
+public final class RadixSort {
+    // key bytes inspected by one sort of rotations or suffixes
+    private static final Histogram BYTES_READ = Metrics.histogram("radixsort.bytesRead");
+    // byte values are shifted by one, 0 marks the end of a suffix, which sorts before any byte
+    private static final int R = 257;
+    // subarrays of at most this size are insertion sorted
+    private static final int INSERTION_CUTOFF = 16;
+    // subarrays of at most this size are 3-way quicksorted, counting all the buckets does not pay off for them
+    private static final int QUICKSORT_CUTOFF = 1024;
+    // buckets of at least this size are sorted as separate fork-join tasks
+    private static final int PARALLEL_CUTOFF = 1 << 15;
+    // longest common prefix MSD sort resolves, it bounds the recursion depth
+    private static final int DEPTH_LIMIT = 128;
+
+    private RadixSort() {
+    }
+
+    // indices of all circular rotations of text in sorted order, sorted in parallel when text is long
+    public static int[] sortRotations(byte[] text) {
+        return sortRotations(text, true);
+    }
+
+    public static int[] sortRotations(byte[] text, boolean parallel) {
+        if (text == null) throw new IllegalArgumentException("Text cannot be null");
+        final int n = text.length;
+        final int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+        }
+        if (n < 2) return index;
+        // rotation i is doubled[i..i+n), so no modulo is needed when reading the d-th byte of a rotation
+        final byte[] doubled = new byte[2 * n];
+        System.arraycopy(text, 0, doubled, 0, n);
+        System.arraycopy(text, 0, doubled, n, n);
+        new RotationSort(doubled, n, index, true).run(parallel);
+        return index;
+    }
+
+    // suffix array of text, a suffix that is a prefix of another one comes first
+    public static int[] sortSuffixes(byte[] text) {
+        return sortSuffixes(text, true);
+    }
+
+    public static int[] sortSuffixes(byte[] text, boolean parallel) {
+        if (text == null) throw new IllegalArgumentException("Text cannot be null");
+        final int n = text.length;
+        final int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+        }
+        if (n < 2) return index;
+        new RotationSort(text, n, index, false).run(parallel);
+        return index;
+    }
+
+    // stable sort of offsets by width-byte keys data[offset..offset+width)
+    public static void sortFixedLength(byte[] data, int[] offsets, int width) {
+        if (data == null || offsets == null) throw new IllegalArgumentException("Arguments cannot be null");
+        if (width < 0) throw new IllegalArgumentException("Width cannot be negative");
+        for (int offset : offsets) {
+            if (offset < 0 || offset > data.length - width) {
+                throw new IllegalArgumentException("Key at offset " + offset + " out of range");
+            }
+        }
+        final int n = offsets.length;
+        int[] from = offsets;
+        int[] to = new int[n];
+        final int[] count = new int[R + 1];
+        for (int d = width-1; d >= 0; d--) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(data[from[i] + d] & 0xFF) + 1]++;
+            }
+            for (int r = 0; r < R; r++) {
+                count[r + 1] += count[r];
+            }
+            for (int i = 0; i < n; i++) {
+                to[count[data[from[i] + d] & 0xFF]++] = from[i];
+            }
+            int[] temp = from;
+            from = to;
+            to = temp;
+        }
+        if (from != offsets) System.arraycopy(from, 0, offsets, 0, n);
+    }
+
+    private static final class RotationSort {
+        // text doubled for rotations, text itself for suffixes
+        private final byte[] keys;
+        private final int n;
+        private final int[] index;
+        private final boolean circular;
+        // number of leading bytes MSD sort compares
+        private final int limit;
+        // distribution buffer, every subarray only uses its own range, so concurrent tasks never overlap
+        private final int[] aux;
+        // bytes read by all the tasks, counted only with metrics enabled
+        private final LongAdder bytesRead = new LongAdder();
+
+        RotationSort(byte[] keys, int n, int[] index, boolean circular) {
+            this.keys = keys;
+            this.n = n;
+            this.index = index;
+            this.circular = circular;
+            this.limit = Math.min(n, DEPTH_LIMIT);
+            this.aux = new int[n];
+        }
+
+        void run(boolean parallel) {
+            if (parallel && n >= PARALLEL_CUTOFF) {
+                ForkJoinPool.commonPool().invoke(task(0, n-1, 0));
+            } else {
+                sort(0, n-1, 0);
+            }
+            prefixDoubling();
+            if (Metrics.ENABLED) BYTES_READ.record(bytesRead.sum());
+        }
+
+        // index is sorted by the first limit bytes, sorts the runs that are equal in them by prefix doubling:
+        // once the rotations or suffixes are sorted by their first h bytes and rank[p] is the position of the
+        // first one equal to p in them, sorting every run by rank[p+h] sorts it by the first 2h bytes;
+        // ranks are updated in place, a run then may be sorted by more than 2h bytes, never by less
+        private void prefixDoubling() {
+            final int[] rank = new int[n];
+            int[] runs = new int[16];
+            int runCount = 0;
+            for (int lo = 0, i = 1; i <= n; i++) {
+                if (i < n && samePrefix(index[i-1], index[i])) continue;
+                for (int j = lo; j < i; j++) {
+                    rank[index[j]] = lo;
+                }
+                if (i - lo > 1) {
+                    if (runCount + 2 > runs.length) runs = Arrays.copyOf(runs, 2 * runs.length);
+                    runs[runCount++] = lo;
+                    runs[runCount++] = i - 1;
+                }
+                lo = i;
+            }
+            for (int h = limit; runCount > 0 && h < n; h *= 2) {
+                int[] next = new int[Math.max(16, runCount)];
+                int nextCount = 0;
+                for (int r = 0; r < runCount; r += 2) {
+                    final int lo = runs[r];
+                    final int hi = runs[r+1];
+                    // rank of the rotation or suffix h bytes further + 1 (0 past the end of a suffix) << 32 | p
+                    final long[] sorted = new long[hi - lo + 1];
+                    for (int i = lo; i <= hi; i++) {
+                        final int p = index[i];
+                        final int q = circular ? (p + h) % n : p + h;
+                        sorted[i - lo] = (long) (q < n ? rank[q] + 1 : 0) << 32 | p;
+                    }
+                    Arrays.sort(sorted);
+                    for (int from = 0, i = 1; i <= sorted.length; i++) {
+                        if (i < sorted.length && sorted[i] >>> 32 == sorted[from] >>> 32) continue;
+                        for (int j = from; j < i; j++) {
+                            index[lo + j] = (int) sorted[j];
+                            rank[(int) sorted[j]] = lo + from;
+                        }
+                        if (i - from > 1) {
+                            if (nextCount + 2 > next.length) next = Arrays.copyOf(next, 2 * next.length);
+                            next[nextCount++] = lo + from;
+                            next[nextCount++] = lo + i - 1;
+                        }
+                        from = i;
+                    }
+                }
+                runs = next;
+                runCount = nextCount;
+            }
+            // only rotations of a periodic text can still be tied, they are equal and go in the order of their index
+            for (int r = 0; r < runCount; r += 2) {
+                Arrays.sort(index, runs[r], runs[r+1] + 1);
+            }
+        }
+
+        private boolean samePrefix(int first, int second) {
+            for (int k = 0; k < limit; k++) {
+                if (byteAt(first, k) != byteAt(second, k)) {
+                    if (Metrics.ENABLED) bytesRead.add(2 * (k + 1));
+                    return false;
+                }
+            }
+            if (Metrics.ENABLED) bytesRead.add(2 * limit);
+            return true;
+        }
+
+        // d-th byte of the rotation or suffix starting at i, shifted by one, or 0 past the end of a suffix
+        private int byteAt(int i, int d) {
+            return i + d < keys.length ? (keys[i + d] & 0xFF) + 1 : 0;
+        }
+
+        // sorts index[lo..hi], all of which share the first d bytes, by their first limit bytes
+        void sort(int lo, int hi, int d) {
+            if (d >= limit || hi <= lo) return;
+            if (hi - lo < INSERTION_CUTOFF) {
+                insertion(lo, hi, d);
+            } else if (hi - lo < QUICKSORT_CUTOFF) {
+                quick3(lo, hi, d);
+            } else {
+                final int[] count = distribute(lo, hi, d);
+                for (int r = 0; r < R; r++) {
+                    sort(lo + count[r], lo + count[r+1] - 1, d+1);
+                }
+            }
+        }
+
+        // key-indexed counting on the d-th byte, returns bucket boundaries relative to lo
+        private int[] distribute(int lo, int hi, int d) {
+            final int[] count = new int[R + 1];
+            for (int i = lo; i <= hi; i++) {
+                count[byteAt(index[i], d) + 1]++;
+            }
+            for (int r = 0; r < R; r++) {
+                count[r + 1] += count[r];
+            }
+            if (Metrics.ENABLED) bytesRead.add(2 * (hi - lo + 1));
+            final int[] next = count.clone();
+            for (int i = lo; i <= hi; i++) {
+                aux[lo + next[byteAt(index[i], d)]++] = index[i];
+            }
+            System.arraycopy(aux, lo, index, lo, hi - lo + 1);
+            return count;
+        }
+
+        private void quick3(int lo, int hi, int d) {
+            if (d >= limit || hi <= lo) return;
+            if (hi - lo < INSERTION_CUTOFF) {
+                insertion(lo, hi, d);
+                return;
+            }
+            // median of three as pivot, sorted or periodic inputs would otherwise degrade to quadratic
+            swap(lo, median3(lo, lo + (hi - lo) / 2, hi, d));
+            if (Metrics.ENABLED) bytesRead.add(3 + hi - lo);
+            final int v = byteAt(index[lo], d);
+            int lt = lo;
+            int gt = hi;
+            int i = lo + 1;
+            while (i <= gt) {
+                int t = byteAt(index[i], d);
+                if (t < v) swap(lt++, i++);
+                else if (t > v) swap(i, gt--);
+                else i++;
+            }
+            quick3(lo, lt-1, d);
+            quick3(lt, gt, d+1);
+            quick3(gt+1, hi, d);
+        }
+
+        private int median3(int i, int j, int k, int d) {
+            int a = byteAt(index[i], d);
+            int b = byteAt(index[j], d);
+            int c = byteAt(index[k], d);
+            if (a < b) return b < c ? j : a < c ? k : i;
+            return a < c ? i : b < c ? k : j;
+        }
+
+        private void insertion(int lo, int hi, int d) {
+            for (int i = lo + 1; i <= hi; i++) {
+                final int rotation = index[i];
+                int j = i;
+                while (j > lo && less(rotation, index[j-1], d)) {
+                    index[j] = index[j-1];
+                    j--;
+                }
+                index[j] = rotation;
+            }
+        }
+
+        private boolean less(int first, int second, int d) {
+            for (int k = d; k < limit; k++) {
+                int a = byteAt(first, k);
+                int b = byteAt(second, k);
+                if (a != b) {
+                    if (Metrics.ENABLED) bytesRead.add(2 * (k - d + 1));
+                    return a < b;
+                }
+            }
+            if (Metrics.ENABLED) bytesRead.add(2 * (limit - d));
+            return false;
+        }
+
+        private void swap(int i, int j) {
+            int temp = index[i];
+            index[i] = index[j];
+            index[j] = temp;
+        }
+
+        RecursiveAction task(int lo, int hi, int d) {
+            return new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    if (d >= limit || hi - lo < PARALLEL_CUTOFF) {
+                        sort(lo, hi, d);
+                        return;
+                    }
+                    final int[] count = distribute(lo, hi, d);
+                    final List<RecursiveAction> subtasks = new ArrayList<>();
+                    for (int r = 0; r < R; r++) {
+                        int from = lo + count[r];
+                        int to = lo + count[r+1] - 1;
+                        if (to - from + 1 >= PARALLEL_CUTOFF) {
+                            subtasks.add(task(from, to, d+1));
+                        } else {
+                            // small buckets are not worth a task of their own, they are sorted while others run
+                            subtasks.add(null);
+                        }
+                    }
+                    for (RecursiveAction subtask : subtasks) {
+                        if (subtask != null) subtask.fork();
+                    }
+                    for (int r = 0; r < R; r++) {
+                        if (subtasks.get(r) == null) sort(lo + count[r], lo + count[r+1] - 1, d+1);
+                    }
+                    for (RecursiveAction subtask : subtasks) {
+                        if (subtask != null) subtask.join();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.marwlod.burrows_wheeler;
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// compares RadixSort with the comparator sort CircularSuffixArray used before on text, binary
+// and highly repetitive inputs, and times LSD sort of fixed-length keys taken from move-to-front output;
+// on periodic input the comparator sort is quadratic, so there it is only run on the first PERIODIC_CHECK bytes
+// args[0] - input size in bytes (default 1000000)
+public class RadixSortBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int KEY_WIDTH = 4;
+    private static final int PERIODIC_CHECK = 20000;
+
+    private interface Workload {
+        int[] run();
+    }
+
+    // words of a small vocabulary separated by spaces, with newlines now and then
+    static byte[] text(int n, Random random) {
+        String[] words = new String[2000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++) word.append((char) ('a' + random.nextInt(26)));
+            words[i] = word.toString();
+        }
+        byte[] result = new byte[n];
+        int i = 0;
+        while (i < n) {
+            // skewed choice of words, so that some are much more frequent than others
+            String word = words[(int) (words.length * Math.pow(random.nextDouble(), 3))];
+            for (int j = 0; j < word.length() && i < n; j++) result[i++] = (byte) word.charAt(j);
+            if (i < n) result[i++] = (byte) (random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        return result;
+    }
+
+    static byte[] binary(int n, Random random) {
+        byte[] result = new byte[n];
+        random.nextBytes(result);
+        return result;
+    }
+
+    // log-like lines that only differ in a counter and a few random digits, long common prefixes everywhere
+    static byte[] repetitive(int n, Random random) {
+        byte[] result = new byte[n];
+        int i = 0;
+        for (int line = 0; i < n; line++) {
+            String s = "2026-10-19 INFO  [worker-" + random.nextInt(4) + "] request " + line
+                    + " served in " + random.nextInt(100) + " ms\n";
+            for (int j = 0; j < s.length() && i < n; j++) result[i++] = (byte) s.charAt(j);
+        }
+        return result;
+    }
+
+    // one log line over and over, every rotation shares a prefix as long as the whole input with others
+    static byte[] periodic(int n) {
+        String line = "2026-10-19 INFO  [worker-1] request served in 12 ms\n";
+        byte[] result = new byte[n];
+        for (int i = 0; i < n; i++) result[i] = (byte) line.charAt(i % line.length());
+        return result;
+    }
+
+    // circular suffix array as computed before RadixSort
+    static int[] comparatorSort(byte[] text) {
+        final int length = text.length;
+        Integer[] suffixes = new Integer[length];
+        for (int i = 0; i < length; i++) suffixes[i] = i;
+        Arrays.sort(suffixes, (first, second) -> {
+            for (int i = 0; i < length; i++) {
+                int thisChar = text[first++ % length] & 0xFF;
+                int thatChar = text[second++ % length] & 0xFF;
+                if (thisChar != thatChar) return Integer.compare(thisChar, thatChar);
+            }
+            return 0;
+        });
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) result[i] = suffixes[i];
+        return result;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Random random = new Random(42);
+        String[] names = {"text", "binary", "repetitive", "periodic"};
+        byte[][] inputs = {text(n, random), binary(n, random), repetitive(n, random), periodic(n)};
+        for (int k = 0; k < inputs.length; k++) {
+            byte[] input = inputs[k];
+            if (names[k].equals("periodic")) {
+                byte[] prefix = Arrays.copyOf(input, Math.min(n, PERIODIC_CHECK));
+                if (!Arrays.equals(RadixSort.sortRotations(prefix), comparatorSort(prefix))) {
+                    throw new IllegalStateException("Sorted rotations differ");
+                }
+                int[] expected = RadixSort.sortRotations(input, false);
+                long sequential = measure(() -> RadixSort.sortRotations(input, false), expected);
+                long parallel = measure(() -> RadixSort.sortRotations(input, true), expected);
+                StdOut.printf("%-10s n = %d, comparator = skipped, radix = %8.2f ms, parallel radix = %8.2f ms%n",
+                        names[k], n, sequential / 1e6, parallel / 1e6);
+            } else {
+                int[] expected = comparatorSort(input);
+                long comparator = measure(() -> comparatorSort(input), expected);
+                long sequential = measure(() -> RadixSort.sortRotations(input, false), expected);
+                long parallel = measure(() -> RadixSort.sortRotations(input, true), expected);
+                StdOut.printf("%-10s n = %d, comparator = %8.2f ms, radix = %8.2f ms (%5.1fx), "
+                        + "parallel radix = %8.2f ms (%5.1fx)%n", names[k], n, comparator / 1e6,
+                        sequential / 1e6, (double) comparator / sequential, parallel / 1e6,
+                        (double) comparator / parallel);
+            }
+
+            byte[] encoded = MoveToFront.encode(input);
+            int[] offsets = new int[encoded.length - KEY_WIDTH + 1];
+            long lsd = Long.MAX_VALUE;
+            long boxed = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < offsets.length; i++) offsets[i] = i;
+                long start = System.nanoTime();
+                RadixSort.sortFixedLength(encoded, offsets, KEY_WIDTH);
+                lsd = Math.min(lsd, System.nanoTime() - start);
+                start = System.nanoTime();
+                Integer[] windows = new Integer[offsets.length];
+                for (int i = 0; i < windows.length; i++) windows[i] = i;
+                Arrays.sort(windows, (first, second) -> {
+                    for (int d = 0; d < KEY_WIDTH; d++) {
+                        int a = encoded[first + d] & 0xFF;
+                        int b = encoded[second + d] & 0xFF;
+                        if (a != b) return Integer.compare(a, b);
+                    }
+                    return 0;
+                });
+                boxed = Math.min(boxed, System.nanoTime() - start);
+                for (int i = 0; i < windows.length; i++) {
+                    if (windows[i] != offsets[i]) throw new IllegalStateException("LSD sort differs at " + i);
+                }
+            }
+            StdOut.printf("%-10s %d-byte windows of move-to-front output, comparator = %8.2f ms, lsd = %8.2f ms "
+                    + "(%5.1fx)%n", names[k], KEY_WIDTH, boxed / 1e6, lsd / 1e6, (double) boxed / lsd);
+        }
+    }
+
+    // best time out of several rounds, every result is checked against the expected one
+    private static long measure(Workload workload, int[] expected) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int[] result = workload.run();
+            best = Math.min(best, System.nanoTime() - start);
+            if (!Arrays.equals(result, expected)) throw new IllegalStateException("Sorted rotations differ");
+        }
+        return best;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.marwlod.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// monotonically increasing count, cheap to update from many threads at once
+public class Counter {
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    void reset() {
+        count.reset();
+    }
+}
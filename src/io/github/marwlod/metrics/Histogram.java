@@ -0,0 +1,69 @@
+package io.github.marwlod.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// distribution of non-negative values: count, sum, min, max and power of two buckets,
+// bucket i counts values v with 2^(i-1) <= v < 2^i (bucket 0 counts zeros)
+public class Histogram {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+
+    Histogram() {
+    }
+
+    public void record(long value) {
+        if (value < 0) throw new IllegalArgumentException("Value cannot be negative");
+        count.increment();
+        sum.add(value);
+        if (value < min.get()) min.accumulateAndGet(value, Math::min);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    // smallest recorded value, 0 if nothing was recorded
+    public long min() {
+        return count() == 0 ? 0 : min.get();
+    }
+
+    // largest recorded value, 0 if nothing was recorded
+    public long max() {
+        return count() == 0 ? 0 : max.get();
+    }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum() / n;
+    }
+
+    // number of values in bucket i
+    public long bucket(int i) {
+        return buckets.get(i);
+    }
+
+    int buckets() {
+        return buckets.length();
+    }
+
+    void reset() {
+        count.reset();
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.marwlod.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// registry of counters and histograms of the algorithms, switched on with -Dalgs.metrics=true;
+// ENABLED is a compile time constant for JIT, so when it is false the guarded code
+// (if (Metrics.ENABLED) ...) is removed from the hot paths altogether
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("algs.metrics");
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    static {
+        if (ENABLED) registerMBean();
+    }
+
+    private Metrics() {
+    }
+
+    // counter with given name, created on first use
+    public static Counter counter(String name) {
+        if (name == null) throw new IllegalArgumentException("Name cannot be null");
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    // histogram with given name, created on first use
+    public static Histogram histogram(String name) {
+        if (name == null) throw new IllegalArgumentException("Name cannot be null");
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public static void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(Histogram::reset);
+    }
+
+    // all counters and histograms as JSON, names in alphabetical order
+    public static String snapshot() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, Counter> entry : COUNTERS.entrySet()) {
+            json.append(separator).append(quote(entry.getKey())).append(':').append(entry.getValue().get());
+            separator = ",";
+        }
+        json.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+            Histogram h = entry.getValue();
+            json.append(separator).append(quote(entry.getKey()))
+                    .append(":{\"count\":").append(h.count())
+                    .append(",\"sum\":").append(h.sum())
+                    .append(",\"min\":").append(h.min())
+                    .append(",\"max\":").append(h.max())
+                    .append(",\"mean\":").append(h.mean())
+                    .append(",\"buckets\":{");
+            String bucketSeparator = "";
+            for (int i = 0; i < h.buckets(); i++) {
+                if (h.bucket(i) == 0) continue;
+                // key is the exclusive upper bound of the bucket
+                String bound = i == Long.SIZE ? "inf" : Long.toUnsignedString(1L << i);
+                json.append(bucketSeparator).append(quote("<" + bound)).append(':').append(h.bucket(i));
+                bucketSeparator = ",";
+            }
+            json.append("}}");
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMXBean() {
+                @Override
+                public Map<String, Long> getCounters() {
+                    Map<String, Long> counters = new TreeMap<>();
+                    COUNTERS.forEach((name, counter) -> counters.put(name, counter.get()));
+                    return counters;
+                }
+
+                @Override
+                public Map<String, Double> getHistogramMeans() {
+                    Map<String, Double> means = new TreeMap<>();
+                    HISTOGRAMS.forEach((name, histogram) -> means.put(name, histogram.mean()));
+                    return means;
+                }
+
+                @Override
+                public String getSnapshot() {
+                    return snapshot();
+                }
+
+                @Override
+                public void reset() {
+                    Metrics.reset();
+                }
+            }, new ObjectName("io.github.marwlod:type=Metrics"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.marwlod.metrics;
+
+import edu.princeton.cs.algs4.Digraph;
+import edu.princeton.cs.algs4.DigraphGenerator;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import io.github.marwlod.baseball_elimination.EliminationBenchmark;
+import io.github.marwlod.boggle.BoggleBoard;
+import io.github.marwlod.boggle.BoggleSolver;
+import io.github.marwlod.burrows_wheeler.CircularSuffixArray;
+import io.github.marwlod.seam_carving.SeamCarver;
+import io.github.marwlod.word_net.SAP;
+
+import java.util.Random;
+
+// runs instrumented algorithms and prints the best time of each out of several rounds;
+// run once as is and once with -Dalgs.metrics=true to compare the overhead of the metrics
+// args[0] - boggle dictionary file (optional)
+public class MetricsBenchmark {
+    private static final int ROUNDS = 7;
+
+    private interface Workload {
+        void run();
+    }
+
+    public static void main(String[] args) {
+        StdRandom.setSeed(42);
+        StdOut.println("metrics enabled = " + Metrics.ENABLED);
+        if (args.length > 0) {
+            BoggleSolver solver = new BoggleSolver(new In(args[0]).readAllStrings());
+            BoggleBoard[] boards = new BoggleBoard[2000];
+            for (int i = 0; i < boards.length; i++) boards[i] = new BoggleBoard();
+            measure("boggle, 2000 boards", () -> {
+                for (BoggleBoard board : boards) solver.totalScore(board);
+            });
+        }
+        // fresh divisions every round, a division caches its answers
+        measure("baseball, 1000 reports of 30 teams", () -> {
+            Random random = new Random(42);
+            for (int i = 0; i < 1000; i++) EliminationBenchmark.randomDivision(30, random).eliminationReport();
+        });
+        Digraph dag = DigraphGenerator.rootedInDAG(20000, 60000);
+        SAP sap = new SAP(dag);
+        measure("sap, 2000 queries", () -> {
+            for (int i = 0; i < 2000; i++) sap.length(StdRandom.uniform(dag.V()), StdRandom.uniform(dag.V()));
+        });
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) text.append((char) ('a' + StdRandom.uniform(16)));
+        String s = text.toString();
+        measure("circular suffix array, 200000 chars", () -> new CircularSuffixArray(s));
+        Picture picture = new Picture(300, 200);
+        for (int x = 0; x < picture.width(); x++) {
+            for (int y = 0; y < picture.height(); y++) picture.setRGB(x, y, StdRandom.uniform(1 << 24));
+        }
+        measure("seam carver, 50 + 50 seams", () -> {
+            SeamCarver carver = new SeamCarver(picture);
+            for (int i = 0; i < 50; i++) {
+                carver.removeVerticalSeam(carver.findVerticalSeam());
+                carver.removeHorizontalSeam(carver.findHorizontalSeam());
+            }
+        });
+        if (Metrics.ENABLED) StdOut.println(Metrics.snapshot());
+    }
+
+    private static void measure(String name, Workload workload) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            workload.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        StdOut.printf("%-40s %8.2f ms%n", name, best / 1e6);
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.marwlod.metrics;
+
+import java.util.Map;
+
+// management interface of the metrics, registered as io.github.marwlod:type=Metrics
+public interface MetricsMXBean {
+    // values of all the counters
+    Map<String, Long> getCounters();
+
+    // mean of every histogram
+    Map<String, Double> getHistogramMeans();
+
+    // all counters and histograms as JSON
+    String getSnapshot();
+
+    void reset();
+}
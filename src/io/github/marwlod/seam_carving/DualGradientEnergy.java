@@ -0,0 +1,31 @@
+package io.github.marwlod.seam_carving;
+
+final class DualGradientEnergy implements EnergyFunction {
+    static final DualGradientEnergy INSTANCE = new DualGradientEnergy();
+
+    private DualGradientEnergy() {
+    }
+
+    @Override
+    public double energy(int[][] rgb, int width, int height, int x, int y) {
+        // all pixels at the perimeter has 1000 energy
+        if (x == 0 || x == width - 1 || y == 0 || y == height - 1) return 1000;
+        // all the others has energy calculated from neighboring pixels (right, left, up, down)
+        int rgbLowerX = rgb[x-1][y];
+        int rgbHigherX = rgb[x+1][y];
+        int rgbLowerY = rgb[x][y-1];
+        int rgbHigherY = rgb[x][y+1];
+        int squaredGradX = getSquaredGradient(rgbLowerX, rgbHigherX);
+        int squaredGradY = getSquaredGradient(rgbLowerY, rgbHigherY);
+        return Math.sqrt(squaredGradX + squaredGradY);
+    }
+
+    // Rn(x,y)^2 + Gn(x,y)^2 + Bn(x,y)^2 where n = {x,y}, Rn(x,y) -> diff in red color between pixels
+    // (x-1,y) and (x+1,y) for n = x or (x,y-1) and (x,y+1) for n = y
+    private static int getSquaredGradient(int firstRgb, int secondRgb) {
+        int r = Math.abs(((firstRgb >> 16) & 0xFF) - ((secondRgb >> 16) & 0xFF));
+        int g = Math.abs(((firstRgb >> 8) & 0xFF) - ((secondRgb >> 8) & 0xFF));
+        int b = Math.abs((firstRgb & 0xFF) - (secondRgb & 0xFF));
+        return r*r + g*g + b*b;
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.marwlod.seam_carving;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Random;
+
+// seams per second of every built-in energy function, best out of several rounds
+// args[0] - picture file (optional, a generated 600x400 picture otherwise), args[1] - seams per round (default 50)
+public class EnergyBenchmark {
+    private static final int ROUNDS = 5;
+
+    // smooth gradients with a few sharp-edged rectangles, so that the kernels actually choose different seams
+    static Picture generated(int width, int height, Random random) {
+        Picture picture = new Picture(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                picture.setRGB(x, y, ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | random.nextInt(16));
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            int x0 = random.nextInt(width - 40);
+            int y0 = random.nextInt(height - 40);
+            int color = random.nextInt(1 << 24);
+            for (int x = x0; x < x0 + 40; x++) {
+                for (int y = y0; y < y0 + 40; y++) picture.setRGB(x, y, color);
+            }
+        }
+        return picture;
+    }
+
+    // the first and the last row count towards the cost of a seam: with all but the middle pixel of both rows
+    // protected, every masked energy function has to start and end its seam in the middle column
+    static void checkMaskedRows(EnergyFunction[] functions) {
+        Picture picture = generated(45, 45, new Random(7));
+        for (EnergyFunction function : functions) {
+            SeamCarver carver = new SeamCarver(picture, EnergyFunction.masked(function));
+            int last = carver.height() - 1;
+            int middle = carver.width() / 2;
+            for (int x = 0; x < carver.width(); x++) {
+                if (x == middle) continue;
+                carver.protect(x, 0);
+                carver.protect(x, last);
+            }
+            int[] seam = carver.findVerticalSeam();
+            if (seam[0] != middle || seam[last] != middle) {
+                throw new IllegalStateException("Seam goes through a protected pixel of the first or last row");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Picture picture = args.length > 0 ? new Picture(args[0]) : generated(600, 400, new Random(42));
+        int seams = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String[] names = {"dual gradient", "sobel", "forward", "masked dual gradient"};
+        EnergyFunction[] functions = {EnergyFunction.dualGradient(), EnergyFunction.sobel(), EnergyFunction.forward(),
+                EnergyFunction.masked(EnergyFunction.dualGradient())};
+        checkMaskedRows(new EnergyFunction[] {EnergyFunction.dualGradient(), EnergyFunction.sobel(),
+                EnergyFunction.forward()});
+        for (int i = 0; i < functions.length; i++) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                SeamCarver carver = new SeamCarver(picture, functions[i]);
+                if (i == 3) {
+                    // protect the middle of the picture
+                    for (int x = carver.width() / 3; x < 2 * carver.width() / 3; x++) {
+                        for (int y = 0; y < carver.height(); y++) carver.protect(x, y);
+                    }
+                }
+                long start = System.nanoTime();
+                for (int s = 0; s < seams; s++) {
+                    carver.removeVerticalSeam(carver.findVerticalSeam());
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            StdOut.printf("%-22s %dx%d, %8.2f ms, %7.1f seams/sec%n", names[i], picture.width(), picture.height(),
+                    best / 1e6, seams / (best / 1e9));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.marwlod.seam_carving;
+
+// energy of the pixels of a picture and cost of the steps of a vertical seam, used by SeamCarver;
+// rgb is indexed [x][y], only its first width columns and height rows belong to the picture, and for
+// horizontal seams it is the transposed picture, so implementations never depend on the orientation
+public interface EnergyFunction {
+    // bits above the 24 colour bits of a pixel, set by SeamCarver.protect() and SeamCarver.markForRemoval()
+    int PROTECTED = 1 << 24;
+    int REMOVED = 1 << 25;
+
+    // energy of pixel (x,y)
+    double energy(int[][] rgb, int width, int height, int x, int y);
+
+    // whether the seam DP needs energy() of every pixel before it starts relaxing
+    default boolean pixelEnergies() {
+        return true;
+    }
+
+    // cost of a seam starting at (x,0); energies holds energy() of all pixels when pixelEnergies() is true,
+    // and by default a seam starts with the energy of its first pixel
+    default double startCost(int[][] rgb, int width, int height, double[][] energies, int x) {
+        return energies[x][0];
+    }
+
+    // cost of the seam step from (fromX,y-1) to (x,y), where fromX is x-1, x or x+1; by default the step costs
+    // the energy of the pixel it enters, so together with startCost() every pixel of the seam is paid for once
+    default double stepCost(int[][] rgb, int width, int height, double[][] energies, int fromX, int x, int y) {
+        return energies[x][y];
+    }
+
+    // square root of the squared differences of the horizontal and vertical neighbours, 1000 at the perimeter
+    static EnergyFunction dualGradient() {
+        return DualGradientEnergy.INSTANCE;
+    }
+
+    // 3x3 Sobel operator on every colour channel, 1000 at the perimeter
+    static EnergyFunction sobel() {
+        return SobelEnergy.INSTANCE;
+    }
+
+    // forward energy: a step costs the colour differences between the pixels that become neighbours
+    // once the seam is removed, computed while relaxing, so no energy pass runs before the DP
+    static EnergyFunction forward() {
+        return ForwardEnergy.INSTANCE;
+    }
+
+    // energy of base, raised for PROTECTED pixels so seams go around them and lowered for REMOVED pixels
+    // so seams go through them
+    static EnergyFunction masked(EnergyFunction base) {
+        return new MaskedEnergy(base);
+    }
+}
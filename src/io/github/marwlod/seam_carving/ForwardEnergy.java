@@ -0,0 +1,45 @@
+package io.github.marwlod.seam_carving;
+
+// forward energy (Rubinstein, Shamir, Avidan 2008): removing (x,y) makes (x-1,y) and (x+1,y) neighbours,
+// and a diagonal step also makes (x,y-1) a neighbour of (x-1,y) or (x+1,y); the step costs the colour
+// differences between the pixels that become neighbours, so seams avoid creating new edges
+final class ForwardEnergy implements EnergyFunction {
+    static final ForwardEnergy INSTANCE = new ForwardEnergy();
+
+    private ForwardEnergy() {
+    }
+
+    // cost of the vertical step into (x,y), which is also the energy shown for the pixel
+    @Override
+    public double energy(int[][] rgb, int width, int height, int x, int y) {
+        return difference(rgb[Math.max(x-1, 0)][y], rgb[Math.min(x+1, width-1)][y]);
+    }
+
+    @Override
+    public boolean pixelEnergies() {
+        return false;
+    }
+
+    // the first pixel of a seam has no pixel above it, only its vertical cost applies
+    @Override
+    public double startCost(int[][] rgb, int width, int height, double[][] energies, int x) {
+        return energy(rgb, width, height, x, 0);
+    }
+
+    @Override
+    public double stepCost(int[][] rgb, int width, int height, double[][] energies, int fromX, int x, int y) {
+        int left = rgb[Math.max(x-1, 0)][y];
+        int right = rgb[Math.min(x+1, width-1)][y];
+        int cost = difference(left, right);
+        if (fromX < x) cost += difference(rgb[x][y-1], left);
+        else if (fromX > x) cost += difference(rgb[x][y-1], right);
+        return cost;
+    }
+
+    // sum of absolute differences of the colour channels
+    private static int difference(int firstRgb, int secondRgb) {
+        return Math.abs(((firstRgb >> 16) & 0xFF) - ((secondRgb >> 16) & 0xFF))
+                + Math.abs(((firstRgb >> 8) & 0xFF) - ((secondRgb >> 8) & 0xFF))
+                + Math.abs((firstRgb & 0xFF) - (secondRgb & 0xFF));
+    }
+}
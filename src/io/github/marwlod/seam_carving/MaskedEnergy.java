@@ -0,0 +1,41 @@
+package io.github.marwlod.seam_carving;
+
+final class MaskedEnergy implements EnergyFunction {
+    // larger than the energy of any seam through unmasked pixels of a picture of a reasonable size
+    private static final double MASK_ENERGY = 1e9;
+    private final EnergyFunction base;
+
+    MaskedEnergy(EnergyFunction base) {
+        if (base == null) throw new IllegalArgumentException("Energy function cannot be null");
+        this.base = base;
+    }
+
+    @Override
+    public double energy(int[][] rgb, int width, int height, int x, int y) {
+        return base.energy(rgb, width, height, x, y) + mask(rgb[x][y]);
+    }
+
+    @Override
+    public boolean pixelEnergies() {
+        return base.pixelEnergies();
+    }
+
+    @Override
+    public double startCost(int[][] rgb, int width, int height, double[][] energies, int x) {
+        double cost = base.startCost(rgb, width, height, energies, x);
+        return base.pixelEnergies() ? cost : cost + mask(rgb[x][0]);
+    }
+
+    @Override
+    public double stepCost(int[][] rgb, int width, int height, double[][] energies, int fromX, int x, int y) {
+        double cost = base.stepCost(rgb, width, height, energies, fromX, x, y);
+        // energies already contain the mask when the base uses them
+        return base.pixelEnergies() ? cost : cost + mask(rgb[x][y]);
+    }
+
+    private static double mask(int rgb) {
+        if ((rgb & PROTECTED) != 0) return MASK_ENERGY;
+        if ((rgb & REMOVED) != 0) return -MASK_ENERGY;
+        return 0;
+    }
+}
@@ -1,23 +1,48 @@
 package io.github.marwlod.seam_carving;
 
 import edu.princeton.cs.algs4.Picture;
+import io.github.marwlod.metrics.Counter;
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
+
+import java.util.Arrays;
 
 public class SeamCarver {
+    private static final Histogram FIND_VERTICAL_NANOS = Metrics.histogram("seamcarver.findVerticalSeam.nanos");
+    private static final Histogram FIND_HORIZONTAL_NANOS = Metrics.histogram("seamcarver.findHorizontalSeam.nanos");
+    private static final Histogram REMOVE_SEAM_NANOS = Metrics.histogram("seamcarver.removeSeam.nanos");
+    private static final Histogram SEAM_ORDER_NANOS = Metrics.histogram("seamcarver.seamOrder.nanos");
+    private static final Counter SEAMS_REMOVED = Metrics.counter("seamcarver.seamsRemoved");
+    // marks pixels that are not removed by any of the seams in a seam order
+    private static final int NOT_IN_SEAM = Integer.MAX_VALUE;
+    private final EnergyFunction energyFunction;
     private int[][] rgb;
     private Picture picture;
     private int picWidth;
     private int picHeight;
+    // order in which the lowest-energy seams remove pixels of the current picture, computed on demand
+    // and reused until the picture changes; the horizontal one is indexed as the transposed picture
+    private SeamOrder verticalOrder;
+    private SeamOrder horizontalOrder;
 
     // create a seam carver object based on the given picture
     public SeamCarver(Picture picture) {
+        this(picture, EnergyFunction.dualGradient());
+    }
+
+    // seam carver that finds seams with given energy function
+    public SeamCarver(Picture picture, EnergyFunction energyFunction) {
         if (picture == null) throw new IllegalArgumentException("Picture cannot be null");
+        if (energyFunction == null) throw new IllegalArgumentException("Energy function cannot be null");
+        this.energyFunction = energyFunction;
         this.picture = new Picture(picture);
         this.picWidth = this.picture.width();
         this.picHeight = this.picture.height();
         this.rgb = new int[picWidth][picHeight];
         for (int x = 0; x < picWidth; x++) {
             for (int y = 0; y < picHeight; y++) {
-                rgb[x][y] = this.picture.getRGB(x, y);
+                // without alpha, the bits above the colour are used for masks
+                rgb[x][y] = this.picture.getRGB(x, y) & 0xFFFFFF;
             }
         }
     }
@@ -40,70 +65,94 @@ public class SeamCarver {
     // energy of pixel at column x and row y
     public double energy(int x, int y) {
         if (x < 0 || x > rgb.length - 1 || y < 0 || y > rgb[0].length - 1) throw new IllegalArgumentException("Points must be inside the picture");
-        // all pixels at the perimeter has 1000 energy
-        if (x == 0 || x == rgb.length - 1 || y == 0 || y == rgb[0].length - 1) return 1000;
-        // all the others has energy calculated from neighboring pixels (right, left, up, down)
-        int rgbLowerX = rgb[x-1][y];
-        int rgbHigherX = rgb[x+1][y];
-        int rgbLowerY = rgb[x][y-1];
-        int rgbHigherY = rgb[x][y+1];
-        int squaredGradX = getSquaredGradient(rgbLowerX, rgbHigherX);
-        int squaredGradY = getSquaredGradient(rgbLowerY, rgbHigherY);
-        return Math.sqrt(squaredGradX + squaredGradY);
-    }
-
-    // Rn(x,y)^2 + Gn(x,y)^2 + Bn(x,y)^2 where n = {x,y}, Rn(x,y) -> diff in red color between pixels
-    // (x-1,y) and (x+1,y) for n = x or (x,y-1) and (x,y+1) for n = y
-    private int getSquaredGradient(int firstRgb, int secondRgb) {
-        int r = Math.abs(((firstRgb >> 16) & 0xFF) - ((secondRgb >> 16) & 0xFF));
-        int g = Math.abs(((firstRgb >> 8) & 0xFF) - ((secondRgb >> 8) & 0xFF));
-        int b = Math.abs((firstRgb & 0xFF) - (secondRgb & 0xFF));
-        return r*r + g*g + b*b;
+        return energyFunction.energy(rgb, rgb.length, rgb[0].length, x, y);
+    }
+
+    // keep seams away from pixel at column x and row y, takes effect with EnergyFunction.masked()
+    public void protect(int x, int y) {
+        setMask(x, y, EnergyFunction.PROTECTED);
+    }
+
+    // pull seams through pixel at column x and row y, takes effect with EnergyFunction.masked()
+    public void markForRemoval(int x, int y) {
+        setMask(x, y, EnergyFunction.REMOVED);
+    }
+
+    private void setMask(int x, int y, int mask) {
+        if (x < 0 || x > picWidth - 1 || y < 0 || y > picHeight - 1) throw new IllegalArgumentException("Points must be inside the picture");
+        rgb[x][y] = (rgb[x][y] & 0xFFFFFF) | mask;
+        verticalOrder = null;
+        horizontalOrder = null;
     }
 
     // sequence of indices for horizontal seam
     public int[] findHorizontalSeam() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         // could be improved to transpose only twice for many consecutive calls to this method
         transpose();
-        int[] horizontalSeam = findVerticalSeam();
+        int[] horizontalSeam = findSeam();
         transpose();
+        if (Metrics.ENABLED) FIND_HORIZONTAL_NANOS.record(System.nanoTime() - start);
         return horizontalSeam;
     }
 
     // sequence of indices for vertical seam
     public int[] findVerticalSeam() {
-        int width = rgb.length;
-        int height = rgb[0].length;
-        double[][] energies = new double[width][height];
-        // calculate energies for all the vertices (pixels)
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                energies[x][y] = energy(x, y);
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] verticalSeam = findSeam();
+        if (Metrics.ENABLED) FIND_VERTICAL_NANOS.record(System.nanoTime() - start);
+        return verticalSeam;
+    }
+
+    // vertical seam of the picture in its current orientation (rgb may be transposed)
+    private int[] findSeam() {
+        return findSeam(rgb, rgb.length, rgb[0].length);
+    }
+
+    // vertical seam of the first width columns of rgb, every step costs what the energy function says
+    private int[] findSeam(int[][] rgb, int width, int height) {
+        EnergyFunction f = energyFunction;
+        double[][] energies = null;
+        if (f.pixelEnergies()) {
+            energies = new double[width][height];
+            // calculate energies for all the vertices (pixels)
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    energies[x][y] = f.energy(rgb, width, height, x, y);
+                }
             }
         }
         double[][] distTo = new double[width][height];
-        // all vertices start out with "infinity" distance from first row, except the first row with dist 0
+        // all vertices start out with "infinity" distance, except the first row, where seams start
         for (int x = 0; x < width; x++) {
+            distTo[x][0] = f.startCost(rgb, width, height, energies, x);
             for (int y = 1; y < height; y++) {
-                distTo[x][y] = Integer.MAX_VALUE;
+                distTo[x][y] = Double.POSITIVE_INFINITY;
             }
         }
         int[][] pathTo = new int[width][height];
         for (int y = 0; y < height-1; y++) {
             for (int x = 0; x < width; x++) {
-                double currMinEnergy = distTo[x][y] + energies[x][y];
+                double currDist = distTo[x][y];
                 // relax three vertices below this vertex (if they exist at all) so they all have minimal possible energy
-                if (x-1 >= 0 && distTo[x-1][y+1] > currMinEnergy) {
-                    distTo[x-1][y+1] = currMinEnergy;
-                    pathTo[x-1][y+1] = x;
+                if (x-1 >= 0) {
+                    double dist = currDist + f.stepCost(rgb, width, height, energies, x, x-1, y+1);
+                    if (distTo[x-1][y+1] > dist) {
+                        distTo[x-1][y+1] = dist;
+                        pathTo[x-1][y+1] = x;
+                    }
                 }
-                if (distTo[x][y+1] > currMinEnergy) {
-                    distTo[x][y+1] = currMinEnergy;
+                double dist = currDist + f.stepCost(rgb, width, height, energies, x, x, y+1);
+                if (distTo[x][y+1] > dist) {
+                    distTo[x][y+1] = dist;
                     pathTo[x][y+1] = x;
                 }
-                if (x+1 < width && distTo[x+1][y+1] > currMinEnergy) {
-                    distTo[x+1][y+1] = currMinEnergy;
-                    pathTo[x+1][y+1] = x;
+                if (x+1 < width) {
+                    dist = currDist + f.stepCost(rgb, width, height, energies, x, x+1, y+1);
+                    if (distTo[x+1][y+1] > dist) {
+                        distTo[x+1][y+1] = dist;
+                        pathTo[x+1][y+1] = x;
+                    }
                 }
             }
         }
@@ -126,6 +175,147 @@ public class SeamCarver {
         return verticalSeam;
     }
 
+    // enlarge the picture by duplicating its k lowest-energy vertical seams
+    public void insertVerticalSeams(int k) {
+        if (k < 0 || k > picWidth - 1) throw new IllegalArgumentException("Number of seams out of range");
+        rgb = retarget(verticalOrder(k), rgb, picWidth + k);
+        picWidth += k;
+        pictureChanged();
+    }
+
+    // enlarge the picture by duplicating its k lowest-energy horizontal seams
+    public void insertHorizontalSeams(int k) {
+        if (k < 0 || k > picHeight - 1) throw new IllegalArgumentException("Number of seams out of range");
+        transpose();
+        SeamOrder order = horizontalOrder(k);
+        rgb = retarget(order, rgb, picHeight + k);
+        transpose();
+        picHeight += k;
+        pictureChanged();
+    }
+
+    // current picture resized to given width by removing or duplicating vertical seams, the seam carver is not
+    // changed, so retargeting to many widths computes the seams once (for the largest change of width)
+    public Picture retargetWidth(int width) {
+        if (width < 1 || width > 2 * picWidth - 1) throw new IllegalArgumentException("Width out of range");
+        int[][] retargeted = retarget(verticalOrder(Math.abs(width - picWidth)), rgb, width);
+        return toPicture(retargeted, width, picHeight);
+    }
+
+    // current picture resized to given height by removing or duplicating horizontal seams, see retargetWidth()
+    public Picture retargetHeight(int height) {
+        if (height < 1 || height > 2 * picHeight - 1) throw new IllegalArgumentException("Height out of range");
+        transpose();
+        int[][] retargeted = retarget(horizontalOrder(Math.abs(height - picHeight)), rgb, height);
+        transpose();
+        int[][] transposed = new int[picWidth][height];
+        for (int x = 0; x < height; x++) {
+            for (int y = 0; y < picWidth; y++) {
+                transposed[y][x] = retargeted[x][y];
+            }
+        }
+        return toPicture(transposed, picWidth, height);
+    }
+
+    // seam order of at least k vertical seams of rgb in its current orientation
+    private SeamOrder verticalOrder(int k) {
+        if (verticalOrder == null || verticalOrder.seams < k) verticalOrder = seamOrder(rgb, k);
+        return verticalOrder;
+    }
+
+    // rgb has to be transposed already
+    private SeamOrder horizontalOrder(int k) {
+        if (horizontalOrder == null || horizontalOrder.seams < k) horizontalOrder = seamOrder(rgb, k);
+        return horizontalOrder;
+    }
+
+    private static final class SeamOrder {
+        // seam that removes pixel (x,y), counting from 0, or NOT_IN_SEAM
+        private final int[][] rank;
+        private final int seams;
+
+        SeamOrder(int[][] rank, int seams) {
+            this.rank = rank;
+            this.seams = seams;
+        }
+    }
+
+    // finds k lowest-energy vertical seams one after another on a working copy of rgb, each of them removed before
+    // the next one is found, and records which pixels of the original picture every seam went through
+    private SeamOrder seamOrder(int[][] rgb, int k) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int width = rgb.length;
+        int height = rgb[0].length;
+        int[][] work = new int[width][];
+        int[][] originalX = new int[width][height];
+        int[][] rank = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            work[x] = rgb[x].clone();
+            Arrays.fill(originalX[x], x);
+            Arrays.fill(rank[x], NOT_IN_SEAM);
+        }
+        for (int s = 0; s < k; s++) {
+            int[] seam = findSeam(work, width, height);
+            for (int y = 0; y < height; y++) {
+                rank[originalX[seam[y]][y]][y] = s;
+                // close the gap, columns past width-1 are not looked at any more
+                for (int x = seam[y]; x < width-1; x++) {
+                    work[x][y] = work[x+1][y];
+                    originalX[x][y] = originalX[x+1][y];
+                }
+            }
+            width--;
+        }
+        if (Metrics.ENABLED) SEAM_ORDER_NANOS.record(System.nanoTime() - start);
+        return new SeamOrder(rank, k);
+    }
+
+    // rgb resized to given width in one pass: pixels of the first |width - current width| seams of the order
+    // are dropped when shrinking, or followed by the average of them and their right neighbour when enlarging
+    private static int[][] retarget(SeamOrder order, int[][] rgb, int width) {
+        int oldWidth = rgb.length;
+        int height = rgb[0].length;
+        int seams = Math.abs(width - oldWidth);
+        boolean enlarge = width > oldWidth;
+        int[][] retargeted = new int[width][height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, newX = 0; x < oldWidth; x++) {
+                boolean inSeam = order.rank[x][y] < seams;
+                if (inSeam && !enlarge) continue;
+                retargeted[newX++][y] = rgb[x][y];
+                if (inSeam) {
+                    int neighbour = x+1 < oldWidth ? rgb[x+1][y] : rgb[x-1][y];
+                    retargeted[newX++][y] = average(rgb[x][y], neighbour);
+                }
+            }
+        }
+        return retargeted;
+    }
+
+    private static int average(int firstRgb, int secondRgb) {
+        int r = (((firstRgb >> 16) & 0xFF) + ((secondRgb >> 16) & 0xFF)) / 2;
+        int g = (((firstRgb >> 8) & 0xFF) + ((secondRgb >> 8) & 0xFF)) / 2;
+        int b = ((firstRgb & 0xFF) + (secondRgb & 0xFF)) / 2;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static Picture toPicture(int[][] rgb, int width, int height) {
+        Picture result = new Picture(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                result.setRGB(x, y, rgb[x][y] & 0xFFFFFF);
+            }
+        }
+        return result;
+    }
+
+    // rgb is the only source of truth after seams were inserted
+    private void pictureChanged() {
+        picture = toPicture(rgb, picWidth, picHeight);
+        verticalOrder = null;
+        horizontalOrder = null;
+    }
+
     private void transpose() {
         int[][] transposed = new int[rgb[0].length][rgb.length];
         for (int x = 0; x < rgb.length; x++) {
@@ -138,6 +328,7 @@ public class SeamCarver {
 
     // remove horizontal seam from current picture
     public void removeHorizontalSeam(int[] seam) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         validateSeam(seam, picWidth, picHeight);
         Picture shorterPicture = new Picture(picWidth, picHeight-1);
         int[][] shorterRgb = new int[picWidth][picHeight-1];
@@ -151,10 +342,17 @@ public class SeamCarver {
         picture = shorterPicture;
         rgb = shorterRgb;
         picHeight--;
+        verticalOrder = null;
+        horizontalOrder = null;
+        if (Metrics.ENABLED) {
+            REMOVE_SEAM_NANOS.record(System.nanoTime() - start);
+            SEAMS_REMOVED.increment();
+        }
     }
 
     // remove vertical seam from current picture
     public void removeVerticalSeam(int[] seam) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         validateSeam(seam, picHeight, picWidth);
         Picture narrowerPicture = new Picture(picWidth-1, picHeight);
         int[][] narrowerRgb = new int[picWidth-1][picHeight];
@@ -168,6 +366,12 @@ public class SeamCarver {
         picture = narrowerPicture;
         rgb = narrowerRgb;
         picWidth--;
+        verticalOrder = null;
+        horizontalOrder = null;
+        if (Metrics.ENABLED) {
+            REMOVE_SEAM_NANOS.record(System.nanoTime() - start);
+            SEAMS_REMOVED.increment();
+        }
     }
 
     private void validateSeam(int[] seam, int targetLength, int maxEntryValue) {
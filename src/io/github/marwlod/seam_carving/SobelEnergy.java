@@ -0,0 +1,32 @@
+package io.github.marwlod.seam_carving;
+
+final class SobelEnergy implements EnergyFunction {
+    static final SobelEnergy INSTANCE = new SobelEnergy();
+
+    private SobelEnergy() {
+    }
+
+    @Override
+    public double energy(int[][] rgb, int width, int height, int x, int y) {
+        if (x == 0 || x == width - 1 || y == 0 || y == height - 1) return 1000;
+        int[] left = rgb[x-1];
+        int[] middle = rgb[x];
+        int[] right = rgb[x+1];
+        int sum = 0;
+        // every channel separately, shift selects red, green and blue
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int topLeft = (left[y-1] >> shift) & 0xFF;
+            int midLeft = (left[y] >> shift) & 0xFF;
+            int bottomLeft = (left[y+1] >> shift) & 0xFF;
+            int top = (middle[y-1] >> shift) & 0xFF;
+            int bottom = (middle[y+1] >> shift) & 0xFF;
+            int topRight = (right[y-1] >> shift) & 0xFF;
+            int midRight = (right[y] >> shift) & 0xFF;
+            int bottomRight = (right[y+1] >> shift) & 0xFF;
+            int gx = (topRight + 2*midRight + bottomRight) - (topLeft + 2*midLeft + bottomLeft);
+            int gy = (bottomLeft + 2*bottom + bottomRight) - (topLeft + 2*top + topRight);
+            sum += gx*gx + gy*gy;
+        }
+        return Math.sqrt(sum);
+    }
+}
@@ -4,6 +4,9 @@ import edu.princeton.cs.algs4.Digraph;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import io.github.marwlod.metrics.Counter;
+import io.github.marwlod.metrics.Histogram;
+import io.github.marwlod.metrics.Metrics;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,6 +14,9 @@ import java.util.LinkedList;
 import java.util.Queue;
 
 public class SAP {
+    // vertices dequeued by both BFS runs of a query together
+    private static final Histogram VERTICES_VISITED = Metrics.histogram("sap.query.verticesVisited");
+    private static final Counter QUERIES = Metrics.counter("sap.queries");
     private final Digraph dg;
 
     // constructor takes a digraph (not necessarily a DAG)
@@ -25,6 +31,7 @@ public class SAP {
         validateVertex(w);
         int[] distToV = computeDists(v);
         int[] distToW = computeDists(w);
+        if (Metrics.ENABLED) recordQuery(distToV, distToW);
         return findSapLen(distToV, distToW);
     }
 
@@ -34,6 +41,7 @@ public class SAP {
         validateVertex(w);
         int[] distToV = computeDists(v);
         int[] distToW = computeDists(w);
+        if (Metrics.ENABLED) recordQuery(distToV, distToW);
         return findSapAncestor(distToV, distToW);
     }
 
@@ -44,6 +52,7 @@ public class SAP {
         validateVertexIterable(ws);
         int[] distToV = computeShortestDists(vs);
         int[] distToW = computeShortestDists(ws);
+        if (Metrics.ENABLED) recordQuery(distToV, distToW);
         return findSapLen(distToV, distToW);
     }
 
@@ -54,6 +63,7 @@ public class SAP {
         validateVertexIterable(ws);
         int[] distToV = computeShortestDists(vs);
         int[] distToW = computeShortestDists(ws);
+        if (Metrics.ENABLED) recordQuery(distToV, distToW);
         return findSapAncestor(distToV, distToW);
     }
 
@@ -85,6 +95,18 @@ public class SAP {
         return ancestor;
     }
 
+    // counts the query and its visited vertices; every vertex a BFS reaches is dequeued exactly once,
+    // so the reached vertices are the visited ones
+    private void recordQuery(int[] distToV, int[] distToW) {
+        long visited = 0;
+        for (int i = 0; i < dg.V(); i++) {
+            if (distToV[i] != Integer.MAX_VALUE) visited++;
+            if (distToW[i] != Integer.MAX_VALUE) visited++;
+        }
+        VERTICES_VISITED.record(visited);
+        QUERIES.increment();
+    }
+
     private int[] computeDists(int source) {
         int[] distTo = new int[dg.V()];
         Arrays.fill(distTo, Integer.MAX_VALUE);